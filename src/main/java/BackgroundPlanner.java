@@ -0,0 +1,124 @@
+/**
+ * Фоновый планировщик, не зависящий от цикла тиков.
+ * <p>
+ * Поток планировщика непрерывно улучшает план на последнем опубликованном снимке состояния техники: каждый шаг
+ * {@link Refiner} получает текущий план (в том числе построенный на одном из предыдущих снимков) и возвращает
+ * улучшенный. Когда план перестаёт улучшаться, поток ждёт следующего снимка. Поток стратегии только публикует снимки и
+ * забирает лучший готовый план, ожидая не дольше заданного срока.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class BackgroundPlanner<P> {
+    private final Refiner<P> refiner;
+    private final Object lock = new Object();
+    private final Thread thread;
+
+    private VehicleSnapshot latestSnapshot;
+    private P plan;
+    private int planTickIndex = -1;
+    private boolean stopped;
+
+    public BackgroundPlanner(Refiner<P> refiner) {
+        this.refiner = refiner;
+
+        thread = new Thread(this::run, "background-planner");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Публикует новый снимок состояния техники. Не блокирует поток стратегии.
+     */
+    public void submit(VehicleSnapshot snapshot) {
+        synchronized (lock) {
+            latestSnapshot = snapshot;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Возвращает план, построенный на снимке не старше тика {@code minTickIndex}, если он готов до момента
+     * {@code deadlineNanos} (по {@link System#nanoTime()}), иначе --- последний готовый план.
+     *
+     * @return Возвращает план или {@code null}, если ни одного плана ещё не построено.
+     */
+    public P getPlan(int minTickIndex, long deadlineNanos) {
+        synchronized (lock) {
+            long remainingNanos;
+
+            while (planTickIndex < minTickIndex && !stopped
+                    && (remainingNanos = deadlineNanos - System.nanoTime()) > 0L) {
+                try {
+                    lock.wait(remainingNanos / 1_000_000L, (int) (remainingNanos % 1_000_000L));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+
+            return plan;
+        }
+    }
+
+    /**
+     * Останавливает поток планировщика.
+     */
+    public void stop() {
+        synchronized (lock) {
+            stopped = true;
+            lock.notifyAll();
+        }
+    }
+
+    private void run() {
+        VehicleSnapshot snapshot = null;
+        P currentPlan = null;
+        boolean converged = false;
+
+        while (true) {
+            synchronized (lock) {
+                while (!stopped && (latestSnapshot == null || converged && latestSnapshot == snapshot)) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+
+                if (stopped) {
+                    return;
+                }
+
+                snapshot = latestSnapshot;
+            }
+
+            P refinedPlan;
+
+            try {
+                refinedPlan = refiner.refine(snapshot, currentPlan);
+            } catch (RuntimeException e) {
+                refinedPlan = null;
+            }
+
+            converged = refinedPlan == currentPlan;
+            currentPlan = refinedPlan;
+
+            synchronized (lock) {
+                plan = currentPlan;
+                planTickIndex = currentPlan == null ? -1 : snapshot.getTickIndex();
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Шаг улучшения плана. Вызывается только из потока планировщика.
+     */
+    public interface Refiner<P> {
+        /**
+         * @param plan Текущий план или {@code null}, если плана ещё нет.
+         * @return Возвращает улучшенный план или тот же объект {@code plan}, если на этом снимке его больше нельзя
+         * улучшить.
+         */
+        P refine(VehicleSnapshot snapshot, P plan);
+    }
+}
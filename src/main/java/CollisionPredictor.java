@@ -0,0 +1,296 @@
+import model.VehicleType;
+
+import java.util.Arrays;
+
+/**
+ * Прогноз столкновений наших формаций.
+ * <p>
+ * Каждая формация (вся наша техника одного типа) приближается ограничивающим прямоугольником со сторонами,
+ * параллельными осям: начальная расстановка и перемещения сохраняют формации квадратными, поэтому прямоугольник, в
+ * отличие от описанной окружности, не перекрывается с прямоугольниками соседних формаций. Перед действием
+ * {@code ActionType.MOVE}, {@code ActionType.ROTATE} или {@code ActionType.SCALE} прямоугольник формации
+ * протягивается по времени со скоростью её самой медленной техники, остальные формации того же слоя (наземного или
+ * воздушного) экстраполируются с их текущей средней скоростью. При повороте используется прямоугольник, описанный
+ * вокруг повёрнутого прямоугольника формации, при масштабировании --- прямоугольник, масштабированный относительно
+ * той же точки. Столкновением считается тик, на котором прямоугольники перекрываются и продолжают сближаться:
+ * формации, уже касающиеся друг друга, но расходящиеся, столкновением не считаются.
+ * <p>
+ * Масштабирование можно проверить и для произвольной рамки выделения (например, техники вокруг точки ядерного удара).
+ * Тогда движущимися считаются все формации, пересекающие рамку, а препятствиями --- остальные формации тех же слоёв.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class CollisionPredictor {
+    private static final VehicleType[] VEHICLE_TYPES = VehicleType.values();
+    private static final int FORMATION_COUNT = VEHICLE_TYPES.length;
+
+    private static final int MOVE = 0;
+    private static final int ROTATE = 1;
+    private static final int SCALE = 2;
+
+    private final int[] countByFormation = new int[FORMATION_COUNT];
+    private final double[] leftByFormation = new double[FORMATION_COUNT];
+    private final double[] topByFormation = new double[FORMATION_COUNT];
+    private final double[] rightByFormation = new double[FORMATION_COUNT];
+    private final double[] bottomByFormation = new double[FORMATION_COUNT];
+    private final double[] speedByFormation = new double[FORMATION_COUNT];
+    private final double[] speedXByFormation = new double[FORMATION_COUNT];
+    private final double[] speedYByFormation = new double[FORMATION_COUNT];
+    private final boolean[] aerialByFormation = new boolean[FORMATION_COUNT];
+    private final double[] previousGapByFormation = new double[FORMATION_COUNT];
+
+    /**
+     * Пересчитывает ограничивающие прямоугольники и скорости всех наших формаций.
+     */
+    public void update(long myPlayerId, VehicleTable vehicleTable, MotionHistory motionHistory, int tickIndex) {
+        Arrays.fill(countByFormation, 0);
+        Arrays.fill(leftByFormation, Double.POSITIVE_INFINITY);
+        Arrays.fill(topByFormation, Double.POSITIVE_INFINITY);
+        Arrays.fill(rightByFormation, Double.NEGATIVE_INFINITY);
+        Arrays.fill(bottomByFormation, Double.NEGATIVE_INFINITY);
+        Arrays.fill(speedByFormation, Double.POSITIVE_INFINITY);
+        Arrays.fill(speedXByFormation, 0.0D);
+        Arrays.fill(speedYByFormation, 0.0D);
+
+        for (long vehicleId = vehicleTable.nextVehicleId(0L); vehicleId >= 0L;
+             vehicleId = vehicleTable.nextVehicleId(vehicleId + 1L)) {
+            if (vehicleTable.getPlayerId(vehicleId) != myPlayerId) {
+                continue;
+            }
+
+            int formation = vehicleTable.getTypeOrdinal(vehicleId);
+            double x = vehicleTable.getX(vehicleId);
+            double y = vehicleTable.getY(vehicleId);
+            double radius = vehicleTable.getRadius(vehicleId);
+
+            ++countByFormation[formation];
+            leftByFormation[formation] = Math.min(leftByFormation[formation], x - radius);
+            topByFormation[formation] = Math.min(topByFormation[formation], y - radius);
+            rightByFormation[formation] = Math.max(rightByFormation[formation], x + radius);
+            bottomByFormation[formation] = Math.max(bottomByFormation[formation], y + radius);
+            speedByFormation[formation] = Math.min(speedByFormation[formation], vehicleTable.getMaxSpeed(vehicleId));
+            aerialByFormation[formation] = vehicleTable.isAerial(vehicleId);
+        }
+
+        for (int formation = 0; formation < FORMATION_COUNT; ++formation) {
+            if (countByFormation[formation] > 0) {
+                VehicleType vehicleType = VEHICLE_TYPES[formation];
+                speedXByFormation[formation] = motionHistory.getFormationSpeedX(true, vehicleType, tickIndex);
+                speedYByFormation[formation] = motionHistory.getFormationSpeedY(true, vehicleType, tickIndex);
+            }
+        }
+    }
+
+    /**
+     * @return Возвращает первый тик (относительно текущего), на котором формация, смещаемая на вектор
+     * {@code (x, y)}, столкнётся с другой нашей формацией, или {@code -1}, если столкновения не будет в течение
+     * {@code horizonTicks} тиков.
+     */
+    public int predictMove(VehicleType vehicleType, double x, double y, int horizonTicks) {
+        int formation = vehicleType.ordinal();
+        if (countByFormation[formation] == 0) {
+            return -1;
+        }
+
+        double duration = StrictMath.hypot(x, y) / speedByFormation[formation];
+        return sweepFormation(formation, MOVE, x, y, 0.0D, duration, horizonTicks);
+    }
+
+    /**
+     * @return Возвращает первый тик столкновения формации, поворачиваемой на угол {@code angle} вокруг точки
+     * {@code (x, y)}, или {@code -1} (см. {@link #predictMove(VehicleType, double, double, int)}).
+     */
+    public int predictRotate(VehicleType vehicleType, double x, double y, double angle, int horizonTicks) {
+        int formation = vehicleType.ordinal();
+        if (countByFormation[formation] == 0) {
+            return -1;
+        }
+
+        // Самый дальний от центра поворота угол прямоугольника движется с максимальной скоростью формации.
+        double duration = Math.abs(angle) * getMaxCornerDistance(
+                leftByFormation[formation], topByFormation[formation], rightByFormation[formation],
+                bottomByFormation[formation], x, y
+        ) / speedByFormation[formation];
+
+        return sweepFormation(formation, ROTATE, x, y, angle, duration, horizonTicks);
+    }
+
+    /**
+     * @return Возвращает первый тик столкновения формации, масштабируемой с коэффициентом {@code factor} относительно
+     * точки {@code (x, y)}, или {@code -1} (см. {@link #predictMove(VehicleType, double, double, int)}).
+     */
+    public int predictScale(VehicleType vehicleType, double x, double y, double factor, int horizonTicks) {
+        int formation = vehicleType.ordinal();
+        if (countByFormation[formation] == 0) {
+            return -1;
+        }
+
+        return sweepScale(
+                1 << formation, leftByFormation[formation], topByFormation[formation], rightByFormation[formation],
+                bottomByFormation[formation], x, y, factor, horizonTicks
+        );
+    }
+
+    /**
+     * @return Возвращает первый тик, на котором техника в прямоугольнике выделения, масштабируемая с коэффициентом
+     * {@code factor} относительно точки {@code (x, y)}, столкнётся с нашей формацией, не пересекающей этот
+     * прямоугольник, или {@code -1} (см. {@link #predictMove(VehicleType, double, double, int)}).
+     */
+    public int predictScale(double left, double top, double right, double bottom, double x, double y, double factor,
+                            int horizonTicks) {
+        int movingFormationMask = 0;
+
+        for (int formation = 0; formation < FORMATION_COUNT; ++formation) {
+            if (countByFormation[formation] > 0 && leftByFormation[formation] <= right
+                    && left <= rightByFormation[formation] && topByFormation[formation] <= bottom
+                    && top <= bottomByFormation[formation]) {
+                movingFormationMask |= 1 << formation;
+            }
+        }
+
+        return movingFormationMask == 0
+                ? -1
+                : sweepScale(movingFormationMask, left, top, right, bottom, x, y, factor, horizonTicks);
+    }
+
+    private int sweepScale(int movingFormationMask, double left, double top, double right, double bottom, double x,
+                           double y, double factor, int horizonTicks) {
+        double speed = Double.POSITIVE_INFINITY;
+
+        for (int formation = 0; formation < FORMATION_COUNT; ++formation) {
+            if ((movingFormationMask & 1 << formation) != 0) {
+                speed = Math.min(speed, speedByFormation[formation]);
+            }
+        }
+
+        // Самый дальний от центра масштабирования угол прямоугольника проходит наибольший путь.
+        double duration = Math.abs(factor - 1.0D) * getMaxCornerDistance(left, top, right, bottom, x, y) / speed;
+
+        return sweep(movingFormationMask, left, top, right, bottom, SCALE, x, y, factor, duration, horizonTicks);
+    }
+
+    private int sweepFormation(int formation, int action, double x, double y, double parameter, double duration,
+                               int horizonTicks) {
+        return sweep(
+                1 << formation, leftByFormation[formation], topByFormation[formation], rightByFormation[formation],
+                bottomByFormation[formation], action, x, y, parameter, duration, horizonTicks
+        );
+    }
+
+    /**
+     * Протягивает прямоугольник движущихся формаций по времени.
+     *
+     * @param action    Действие: {@link #MOVE} (вектор {@code (x, y)}), {@link #ROTATE} (поворот на угол
+     *                  {@code parameter} вокруг точки {@code (x, y)}) или {@link #SCALE} (масштабирование с
+     *                  коэффициентом {@code parameter} относительно точки {@code (x, y)}).
+     * @param duration  Количество тиков до завершения действия.
+     * @return Возвращает первый тик, на котором прямоугольник перекрывается с прямоугольником другой формации того же
+     * слоя и зазор между ними уменьшается, или {@code -1}.
+     */
+    private int sweep(int movingFormationMask, double left, double top, double right, double bottom, int action,
+                      double x, double y, double parameter, double duration, int horizonTicks) {
+        boolean movingGround = false;
+        boolean movingAerial = false;
+
+        for (int formation = 0; formation < FORMATION_COUNT; ++formation) {
+            if ((movingFormationMask & 1 << formation) != 0) {
+                movingAerial |= aerialByFormation[formation];
+                movingGround |= !aerialByFormation[formation];
+            }
+        }
+
+        for (int otherFormation = 0; otherFormation < FORMATION_COUNT; ++otherFormation) {
+            if (isObstacle(movingFormationMask, movingGround, movingAerial, otherFormation)) {
+                previousGapByFormation[otherFormation] = getGap(left, top, right, bottom, otherFormation, 0);
+            }
+        }
+
+        for (int tick = 1; tick <= horizonTicks; ++tick) {
+            double progress = duration <= tick ? 1.0D : tick / duration;
+
+            double currentLeft;
+            double currentTop;
+            double currentRight;
+            double currentBottom;
+
+            if (action == MOVE) {
+                currentLeft = left + x * progress;
+                currentTop = top + y * progress;
+                currentRight = right + x * progress;
+                currentBottom = bottom + y * progress;
+            } else if (action == SCALE) {
+                double factor = 1.0D + (parameter - 1.0D) * progress;
+                currentLeft = x + (left - x) * factor;
+                currentTop = y + (top - y) * factor;
+                currentRight = x + (right - x) * factor;
+                currentBottom = y + (bottom - y) * factor;
+            } else {
+                double cos = StrictMath.cos(parameter * progress);
+                double sin = StrictMath.sin(parameter * progress);
+
+                currentLeft = Double.POSITIVE_INFINITY;
+                currentTop = Double.POSITIVE_INFINITY;
+                currentRight = Double.NEGATIVE_INFINITY;
+                currentBottom = Double.NEGATIVE_INFINITY;
+
+                for (int corner = 0; corner < 4; ++corner) {
+                    double offsetX = ((corner & 1) == 0 ? left : right) - x;
+                    double offsetY = ((corner & 2) == 0 ? top : bottom) - y;
+                    double cornerX = x + offsetX * cos - offsetY * sin;
+                    double cornerY = y + offsetX * sin + offsetY * cos;
+
+                    currentLeft = Math.min(currentLeft, cornerX);
+                    currentTop = Math.min(currentTop, cornerY);
+                    currentRight = Math.max(currentRight, cornerX);
+                    currentBottom = Math.max(currentBottom, cornerY);
+                }
+            }
+
+            for (int otherFormation = 0; otherFormation < FORMATION_COUNT; ++otherFormation) {
+                if (!isObstacle(movingFormationMask, movingGround, movingAerial, otherFormation)) {
+                    continue;
+                }
+
+                double gap = getGap(currentLeft, currentTop, currentRight, currentBottom, otherFormation, tick);
+                if (gap < 0.0D && gap < previousGapByFormation[otherFormation]) {
+                    return tick;
+                }
+
+                previousGapByFormation[otherFormation] = gap;
+            }
+        }
+
+        return -1;
+    }
+
+    private boolean isObstacle(int movingFormationMask, boolean movingGround, boolean movingAerial,
+                               int otherFormation) {
+        return (movingFormationMask & 1 << otherFormation) == 0 && countByFormation[otherFormation] > 0
+                && (aerialByFormation[otherFormation] ? movingAerial : movingGround);
+    }
+
+    /**
+     * @return Возвращает зазор между прямоугольником {@code (left, top, right, bottom)} и прямоугольником другой
+     * формации, экстраполированным на {@code tick} тиков вперёд. Отрицательный зазор означает перекрытие.
+     */
+    private double getGap(double left, double top, double right, double bottom, int otherFormation, int tick) {
+        double otherShiftX = speedXByFormation[otherFormation] * tick;
+        double otherShiftY = speedYByFormation[otherFormation] * tick;
+
+        double gapX = Math.max(
+                left - rightByFormation[otherFormation] - otherShiftX,
+                leftByFormation[otherFormation] + otherShiftX - right
+        );
+
+        double gapY = Math.max(
+                top - bottomByFormation[otherFormation] - otherShiftY,
+                topByFormation[otherFormation] + otherShiftY - bottom
+        );
+
+        return Math.max(gapX, gapY);
+    }
+
+    private static double getMaxCornerDistance(double left, double top, double right, double bottom, double x,
+                                               double y) {
+        return StrictMath.hypot(Math.max(x - left, right - x), Math.max(y - top, bottom - y));
+    }
+}
@@ -0,0 +1,389 @@
+import model.Facility;
+import model.Game;
+
+import java.util.Arrays;
+
+/**
+ * Кэш полей расстояний по карте местности и погоды.
+ * <p>
+ * Поле расстояний --- это массив, содержащий для каждой клетки карты стоимость пути до целевой клетки с учётом
+ * множителей скорости. Стоимость выражена в единицах длины на равнине в ясную погоду, поэтому количество тиков пути
+ * для конкретной техники равно стоимости, делённой на её максимальную скорость.
+ * <p>
+ * Поля хранятся по ключу (целевая клетка, класс передвижения) и вытесняются по принципу LRU, когда их суммарный
+ * размер превышает заданный лимит памяти. Весь кэш сбрасывается только при смене владельца какого-либо сооружения.
+ * <p>
+ * Пространство ключей ограничено размером карты, поэтому поля хранятся в массиве, индексированном ключом, а порядок
+ * LRU --- двусвязным списком ключей на примитивных массивах. Обращение к кэшу ничего не создаёт, а массив вытесненного
+ * поля переиспользуется для нового.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class DistanceFieldCache {
+    private static final int[] NEIGHBOR_DX = {1, -1, 0, 0, 1, 1, -1, -1};
+    private static final int[] NEIGHBOR_DY = {0, 0, 1, -1, 1, -1, 1, -1};
+
+    private final int columnCount;
+    private final int rowCount;
+    private final double cellWidth;
+    private final double cellHeight;
+    private final double facilityWidth;
+    private final double facilityHeight;
+
+    private final float[][] costByMovementClass;
+    private final int maxFieldCount;
+
+    private final float[][] fieldByKey;
+    private final int[] newerKeyByKey;
+    private final int[] olderKeyByKey;
+    private int newestKey = -1;
+    private int oldestKey = -1;
+    private int fieldCount;
+
+    private final int[] singleSourceCell = new int[1];
+
+    private long[] facilityIds = new long[0];
+    private long[] ownerPlayerIdByFacility = new long[0];
+
+    private final int[] heap;
+    private final int[] heapIndexByCell;
+    private int heapSize;
+
+    /**
+     * @param memoryLimitBytes Максимальный суммарный размер хранимых полей в байтах. Хотя бы одно поле хранится
+     *                         всегда.
+     */
+    public DistanceFieldCache(Game game, TerrainWeatherGrid terrainWeatherGrid, int memoryLimitBytes) {
+        columnCount = terrainWeatherGrid.getColumnCount();
+        rowCount = terrainWeatherGrid.getRowCount();
+        cellWidth = terrainWeatherGrid.getCellWidth();
+        cellHeight = terrainWeatherGrid.getCellHeight();
+        facilityWidth = game.getFacilityWidth();
+        facilityHeight = game.getFacilityHeight();
+
+        int cellCount = terrainWeatherGrid.getCellCount();
+        costByMovementClass = new float[MovementClass.values().length][cellCount];
+
+        for (int cell = 0; cell < cellCount; ++cell) {
+            costByMovementClass[MovementClass.GROUND.ordinal()][cell]
+                    = (float) (1.0D / terrainWeatherGrid.getSpeedFactor(cell, false));
+            costByMovementClass[MovementClass.AERIAL.ordinal()][cell]
+                    = (float) (1.0D / terrainWeatherGrid.getSpeedFactor(cell, true));
+        }
+
+        maxFieldCount = Math.max(1, memoryLimitBytes / (cellCount * Float.BYTES));
+
+        int keyCount = 2 * cellCount * MovementClass.values().length;
+        fieldByKey = new float[keyCount][];
+        newerKeyByKey = new int[keyCount];
+        olderKeyByKey = new int[keyCount];
+
+        heap = new int[cellCount];
+        heapIndexByCell = new int[cellCount];
+    }
+
+    /**
+     * Сбрасывает кэш, если с момента предыдущего вызова сменился владелец хотя бы одного сооружения.
+     *
+     * @return Возвращает {@code true}, если и только если кэш был сброшен.
+     */
+    public boolean update(Facility[] facilities) {
+        // Симулятор передаёт сооружения в одном и том же порядке, поэтому владельцы сравниваются по позиции в массиве.
+        // Если состав сооружений изменился, владельцы просто запоминаются заново.
+        boolean sameFacilities = facilities.length == facilityIds.length;
+        if (!sameFacilities) {
+            facilityIds = new long[facilities.length];
+            ownerPlayerIdByFacility = new long[facilities.length];
+        }
+
+        boolean ownerChanged = false;
+
+        for (int i = 0; i < facilities.length; ++i) {
+            Facility facility = facilities[i];
+
+            if (sameFacilities && facilityIds[i] == facility.getId()
+                    && ownerPlayerIdByFacility[i] != facility.getOwnerPlayerId()) {
+                ownerChanged = true;
+            }
+
+            facilityIds[i] = facility.getId();
+            ownerPlayerIdByFacility[i] = facility.getOwnerPlayerId();
+        }
+
+        if (ownerChanged) {
+            clear();
+        }
+
+        return ownerChanged;
+    }
+
+    /**
+     * @return Возвращает стоимость пути из точки ({@code x}, {@code y}) до клетки, содержащей точку
+     * ({@code targetX}, {@code targetY}).
+     */
+    public double getDistance(double x, double y, double targetX, double targetY, MovementClass movementClass) {
+        return getField(getCell(targetX, targetY), movementClass)[getCell(x, y)];
+    }
+
+    /**
+     * @return Возвращает поле расстояний до указанной клетки. Индекс клетки ({@code x}, {@code y}) в массиве равен
+     * {@code x * rowCount + y}. Возвращаемый массив не должен изменяться.
+     */
+    public float[] getField(int targetCell, MovementClass movementClass) {
+        int key = getKey(targetCell, movementClass);
+
+        float[] field = get(key);
+        if (field == null) {
+            singleSourceCell[0] = targetCell;
+            field = put(key, singleSourceCell, movementClass);
+        }
+
+        return field;
+    }
+
+    /**
+     * @return Возвращает поле расстояний до ближайшей из клеток, покрываемых сооружением.
+     */
+    public float[] getField(Facility facility, MovementClass movementClass) {
+        int topLeftCell = getCell(facility.getLeft(), facility.getTop());
+        int key = getKey(columnCount * rowCount + topLeftCell, movementClass);
+
+        float[] field = get(key);
+        if (field != null) {
+            return field;
+        }
+
+        int bottomRightCell = getCell(
+                facility.getLeft() + facilityWidth - 1.0E-6D, facility.getTop() + facilityHeight - 1.0E-6D
+        );
+
+        int left = topLeftCell / rowCount;
+        int top = topLeftCell % rowCount;
+        int right = bottomRightCell / rowCount;
+        int bottom = bottomRightCell % rowCount;
+
+        int[] sourceCells = new int[(right - left + 1) * (bottom - top + 1)];
+        int sourceCellCount = 0;
+
+        for (int x = left; x <= right; ++x) {
+            for (int y = top; y <= bottom; ++y) {
+                sourceCells[sourceCellCount++] = x * rowCount + y;
+            }
+        }
+
+        return put(key, sourceCells, movementClass);
+    }
+
+    public int getCell(double x, double y) {
+        int cellX = Math.max(0, Math.min(columnCount - 1, (int) (x / cellWidth)));
+        int cellY = Math.max(0, Math.min(rowCount - 1, (int) (y / cellHeight)));
+        return cellX * rowCount + cellY;
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Цели {@code [0, cellCount)} соответствуют одиночным клеткам, цели {@code [cellCount, 2 * cellCount)} ---
+     * сооружениям, заданным своей левой верхней клеткой.
+     */
+    private static int getKey(int target, MovementClass movementClass) {
+        return target * MovementClass.values().length + movementClass.ordinal();
+    }
+
+    /**
+     * @return Возвращает поле по ключу, делая его самым недавно использованным, или {@code null}, если поля нет.
+     */
+    private float[] get(int key) {
+        float[] field = fieldByKey[key];
+        if (field != null && key != newestKey) {
+            unlink(key);
+            linkNewest(key);
+        }
+
+        return field;
+    }
+
+    /**
+     * Строит и сохраняет поле по ключу. При переполнении вытесняет самое давно использованное поле и переиспользует
+     * его массив.
+     */
+    private float[] put(int key, int[] sourceCells, MovementClass movementClass) {
+        float[] field;
+
+        if (fieldCount >= maxFieldCount) {
+            int evictedKey = oldestKey;
+            field = fieldByKey[evictedKey];
+            fieldByKey[evictedKey] = null;
+            unlink(evictedKey);
+            --fieldCount;
+        } else {
+            field = new float[columnCount * rowCount];
+        }
+
+        computeField(sourceCells, costByMovementClass[movementClass.ordinal()], field);
+
+        fieldByKey[key] = field;
+        linkNewest(key);
+        ++fieldCount;
+        return field;
+    }
+
+    private void clear() {
+        for (int key = newestKey; key >= 0; key = olderKeyByKey[key]) {
+            fieldByKey[key] = null;
+        }
+
+        newestKey = -1;
+        oldestKey = -1;
+        fieldCount = 0;
+    }
+
+    private void linkNewest(int key) {
+        newerKeyByKey[key] = -1;
+        olderKeyByKey[key] = newestKey;
+
+        if (newestKey >= 0) {
+            newerKeyByKey[newestKey] = key;
+        } else {
+            oldestKey = key;
+        }
+
+        newestKey = key;
+    }
+
+    private void unlink(int key) {
+        int newerKey = newerKeyByKey[key];
+        int olderKey = olderKeyByKey[key];
+
+        if (newerKey >= 0) {
+            olderKeyByKey[newerKey] = olderKey;
+        } else {
+            newestKey = olderKey;
+        }
+
+        if (olderKey >= 0) {
+            newerKeyByKey[olderKey] = newerKey;
+        } else {
+            oldestKey = newerKey;
+        }
+    }
+
+    /**
+     * Заполняет поле расстояний алгоритмом Дейкстры от нескольких источников по 8-связной сетке. Стоимость ребра
+     * равна его длине, умноженной на среднюю стоимость прохождения двух соседних клеток.
+     */
+    private void computeField(int[] sourceCells, float[] costByCell, float[] field) {
+        Arrays.fill(field, Float.POSITIVE_INFINITY);
+        Arrays.fill(heapIndexByCell, -1);
+        heapSize = 0;
+
+        for (int sourceCell : sourceCells) {
+            field[sourceCell] = 0.0F;
+            pushOrDecrease(sourceCell, field);
+        }
+
+        while (heapSize > 0) {
+            int cell = pop(field);
+            int x = cell / rowCount;
+            int y = cell % rowCount;
+
+            for (int i = 0; i < NEIGHBOR_DX.length; ++i) {
+                int neighborX = x + NEIGHBOR_DX[i];
+                int neighborY = y + NEIGHBOR_DY[i];
+
+                if (neighborX < 0 || neighborX >= columnCount || neighborY < 0 || neighborY >= rowCount) {
+                    continue;
+                }
+
+                int neighborCell = neighborX * rowCount + neighborY;
+                double length = StrictMath.hypot(NEIGHBOR_DX[i] * cellWidth, NEIGHBOR_DY[i] * cellHeight);
+                float distance = (float) (field[cell]
+                        + length * (costByCell[cell] + costByCell[neighborCell]) / 2.0D);
+
+                if (distance < field[neighborCell]) {
+                    field[neighborCell] = distance;
+                    pushOrDecrease(neighborCell, field);
+                }
+            }
+        }
+    }
+
+    private void pushOrDecrease(int cell, float[] field) {
+        int index = heapIndexByCell[cell];
+        if (index < 0) {
+            index = heapSize++;
+            heap[index] = cell;
+            heapIndexByCell[cell] = index;
+        }
+        siftUp(index, field);
+    }
+
+    private int pop(float[] field) {
+        int cell = heap[0];
+        heapIndexByCell[cell] = -2;
+
+        if (--heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapIndexByCell[heap[0]] = 0;
+            siftDown(0, field);
+        }
+
+        return cell;
+    }
+
+    private void siftUp(int index, float[] field) {
+        int cell = heap[index];
+
+        while (index > 0) {
+            int parentIndex = (index - 1) >>> 1;
+            int parentCell = heap[parentIndex];
+            if (field[parentCell] <= field[cell]) {
+                break;
+            }
+
+            heap[index] = parentCell;
+            heapIndexByCell[parentCell] = index;
+            index = parentIndex;
+        }
+
+        heap[index] = cell;
+        heapIndexByCell[cell] = index;
+    }
+
+    private void siftDown(int index, float[] field) {
+        int cell = heap[index];
+
+        while (true) {
+            int childIndex = 2 * index + 1;
+            if (childIndex >= heapSize) {
+                break;
+            }
+
+            if (childIndex + 1 < heapSize && field[heap[childIndex + 1]] < field[heap[childIndex]]) {
+                ++childIndex;
+            }
+
+            int childCell = heap[childIndex];
+            if (field[cell] <= field[childCell]) {
+                break;
+            }
+
+            heap[index] = childCell;
+            heapIndexByCell[childCell] = index;
+            index = childIndex;
+        }
+
+        heap[index] = cell;
+        heapIndexByCell[cell] = index;
+    }
+
+    /**
+     * Класс передвижения: наземная техника зависит от местности, воздушная --- от погоды.
+     */
+    public enum MovementClass {
+        GROUND,
+
+        AERIAL
+    }
+}
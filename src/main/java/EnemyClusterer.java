@@ -0,0 +1,437 @@
+import model.VehicleType;
+import model.World;
+
+import java.util.Arrays;
+
+/**
+ * Разбиение техники противника на формации (кластеры).
+ * <p>
+ * Используется вариант DBSCAN по сетке: две единицы техники связаны, если расстояние между ними не больше
+ * {@code eps}, кластер --- компонента связности, а кластеры меньше {@code minVehicleCount} единиц считаются шумом.
+ * Сторона клетки сетки равна {@code eps / sqrt(2)}, поэтому любые две единицы техники в одной клетке связаны, а
+ * связанные единицы могут находиться не дальше, чем через одну клетку друг от друга.
+ * <p>
+ * Для каждой клетки хранится маска связей с соседними клетками «вперёд» (половина окрестности 5 × 5). При перемещении
+ * техники пересчитываются только маски клеток, затронутых перемещением, и их соседей. Компоненты связности
+ * пересобираются системой непересекающихся множеств по занятым клеткам, что для 1000 единиц техники занимает доли
+ * миллисекунды.
+ * <p>
+ * Все данные о технике хранятся в примитивных массивах, индексированных идентификатором техники.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class EnemyClusterer {
+    private static final int INITIAL_VEHICLE_CAPACITY = 1024;
+
+    private static final int[] FORWARD_DX = {1, 2, 0, 0, 1, 1, 2, 2, -1, -1, -2, -2};
+    private static final int[] FORWARD_DY = {0, 0, 1, 2, 1, 2, 1, 2, 1, 2, 1, 2};
+
+    private final double squaredEps;
+    private final int minVehicleCount;
+
+    private final double cellSize;
+    private final int columnCount;
+    private final int rowCount;
+
+    private final int[] headVehicleByCell;
+    private final int[] vehicleCountByCell;
+    private final int[] edgeMaskByCell;
+    private final boolean[] dirtyByCell;
+    private final int[] updateIndexByCell;
+    private int updateIndex;
+    private boolean changed;
+    private int[] dirtyCells;
+    private int dirtyCellCount;
+
+    private final int[] occupiedCells;
+    private final int[] occupiedIndexByCell;
+    private int occupiedCellCount;
+
+    private final int[] parentByCell;
+    private final int[] clusterByCell;
+
+    private double[] xByVehicle;
+    private double[] yByVehicle;
+    private int[] typeByVehicle;
+    private int[] durabilityByVehicle;
+    private int[] cellByVehicle;
+    private int[] nextVehicleByVehicle;
+    private int[] previousVehicleByVehicle;
+
+    private int clusterCount;
+    private double[] centerXByCluster = new double[0];
+    private double[] centerYByCluster = new double[0];
+    private int[] vehicleCountByCluster = new int[0];
+    private int[] durabilityByCluster = new int[0];
+    private int[] vehicleCountByClusterAndType = new int[0];
+
+    public EnemyClusterer(World world, double eps, int minVehicleCount) {
+        this.squaredEps = eps * eps;
+        this.minVehicleCount = minVehicleCount;
+
+        cellSize = eps / StrictMath.sqrt(2.0D);
+        columnCount = (int) StrictMath.ceil(world.getWidth() / cellSize);
+        rowCount = (int) StrictMath.ceil(world.getHeight() / cellSize);
+
+        int cellCount = columnCount * rowCount;
+        headVehicleByCell = new int[cellCount];
+        Arrays.fill(headVehicleByCell, -1);
+        vehicleCountByCell = new int[cellCount];
+        edgeMaskByCell = new int[cellCount];
+        dirtyByCell = new boolean[cellCount];
+        updateIndexByCell = new int[cellCount];
+        dirtyCells = new int[64];
+
+        occupiedCells = new int[cellCount];
+        occupiedIndexByCell = new int[cellCount];
+        Arrays.fill(occupiedIndexByCell, -1);
+
+        parentByCell = new int[cellCount];
+        clusterByCell = new int[cellCount];
+
+        allocate(INITIAL_VEHICLE_CAPACITY);
+    }
+
+    /**
+     * Актуализирует положение новой или изменившейся техники противника.
+     */
+    public void accept(long vehicleId, int typeOrdinal, double x, double y, int durability) {
+        int vehicleIndex = (int) vehicleId;
+        if (vehicleIndex >= cellByVehicle.length) {
+            allocate(Math.max(vehicleIndex + 1, 2 * cellByVehicle.length));
+        }
+
+        int cellX = Math.max(0, Math.min(columnCount - 1, (int) (x / cellSize)));
+        int cellY = Math.max(0, Math.min(rowCount - 1, (int) (y / cellSize)));
+        int cell = cellX * rowCount + cellY;
+
+        int previousCell = cellByVehicle[vehicleIndex];
+        boolean moved = xByVehicle[vehicleIndex] != x || yByVehicle[vehicleIndex] != y;
+
+        xByVehicle[vehicleIndex] = x;
+        yByVehicle[vehicleIndex] = y;
+        typeByVehicle[vehicleIndex] = typeOrdinal;
+        durabilityByVehicle[vehicleIndex] = durability;
+        changed = true;
+
+        if (previousCell != cell) {
+            if (previousCell >= 0) {
+                unlink(vehicleIndex, previousCell);
+            }
+            link(vehicleIndex, cell);
+        } else if (moved) {
+            markDirty(cell);
+        }
+    }
+
+    /**
+     * Убирает уничтоженную или скрывшуюся технику.
+     */
+    public void remove(long vehicleId) {
+        int vehicleIndex = (int) vehicleId;
+        if (vehicleIndex < cellByVehicle.length && cellByVehicle[vehicleIndex] >= 0) {
+            unlink(vehicleIndex, cellByVehicle[vehicleIndex]);
+            changed = true;
+        }
+    }
+
+    /**
+     * Пересчитывает связи затронутых клеток и пересобирает кластеры. Должен вызываться после передачи всех изменений
+     * текущего тика. Если с прошлого вызова изменений не было, ничего не делает.
+     */
+    public void update() {
+        if (!changed) {
+            return;
+        }
+
+        changed = false;
+        ++updateIndex;
+
+        for (int i = 0; i < dirtyCellCount; ++i) {
+            int cell = dirtyCells[i];
+            dirtyByCell[cell] = false;
+
+            int cellX = cell / rowCount;
+            int cellY = cell % rowCount;
+
+            // Связи клетки «назад» хранятся в масках соседей, поэтому пересчитываем и их, но не более раза за вызов.
+            for (int neighborX = Math.max(0, cellX - 2); neighborX <= Math.min(columnCount - 1, cellX + 2);
+                 ++neighborX) {
+                for (int neighborY = Math.max(0, cellY - 2); neighborY <= Math.min(rowCount - 1, cellY + 2);
+                     ++neighborY) {
+                    int neighborCell = neighborX * rowCount + neighborY;
+
+                    if (updateIndexByCell[neighborCell] != updateIndex) {
+                        updateIndexByCell[neighborCell] = updateIndex;
+                        computeEdgeMask(neighborCell);
+                    }
+                }
+            }
+        }
+        dirtyCellCount = 0;
+
+        buildClusters();
+    }
+
+    public int getClusterCount() {
+        return clusterCount;
+    }
+
+    /**
+     * @return Возвращает кластер техники или {@code -1}, если техника неизвестна либо отнесена к шуму.
+     */
+    public int getCluster(long vehicleId) {
+        int vehicleIndex = (int) vehicleId;
+        if (vehicleIndex >= cellByVehicle.length || cellByVehicle[vehicleIndex] < 0) {
+            return -1;
+        }
+
+        return clusterByCell[cellByVehicle[vehicleIndex]];
+    }
+
+    public double getCenterX(int cluster) {
+        return centerXByCluster[cluster];
+    }
+
+    public double getCenterY(int cluster) {
+        return centerYByCluster[cluster];
+    }
+
+    public int getVehicleCount(int cluster) {
+        return vehicleCountByCluster[cluster];
+    }
+
+    public int getVehicleCount(int cluster, VehicleType vehicleType) {
+        return vehicleCountByClusterAndType[cluster * VehicleType.values().length + vehicleType.ordinal()];
+    }
+
+    public int getDurability(int cluster) {
+        return durabilityByCluster[cluster];
+    }
+
+    private void buildClusters() {
+        for (int i = 0; i < occupiedCellCount; ++i) {
+            int cell = occupiedCells[i];
+            parentByCell[cell] = cell;
+        }
+
+        for (int i = 0; i < occupiedCellCount; ++i) {
+            int cell = occupiedCells[i];
+            int edgeMask = edgeMaskByCell[cell];
+
+            for (int j = 0; edgeMask != 0; ++j, edgeMask >>>= 1) {
+                if ((edgeMask & 1) != 0) {
+                    union(cell, (cell / rowCount + FORWARD_DX[j]) * rowCount + cell % rowCount + FORWARD_DY[j]);
+                }
+            }
+        }
+
+        // Сначала считаем размеры компонент в корневых клетках, затем нумеруем достаточно большие компоненты.
+        for (int i = 0; i < occupiedCellCount; ++i) {
+            clusterByCell[occupiedCells[i]] = 0;
+        }
+
+        for (int i = 0; i < occupiedCellCount; ++i) {
+            int cell = occupiedCells[i];
+            clusterByCell[find(cell)] += vehicleCountByCell[cell];
+        }
+
+        clusterCount = 0;
+        for (int i = 0; i < occupiedCellCount; ++i) {
+            int cell = occupiedCells[i];
+            if (parentByCell[cell] == cell) {
+                clusterByCell[cell] = clusterByCell[cell] >= minVehicleCount ? -2 - clusterCount++ : -1;
+            }
+        }
+
+        for (int i = 0; i < occupiedCellCount; ++i) {
+            int cell = occupiedCells[i];
+            if (parentByCell[cell] != cell) {
+                clusterByCell[cell] = clusterByCell[find(cell)];
+            }
+        }
+
+        for (int i = 0; i < occupiedCellCount; ++i) {
+            int cell = occupiedCells[i];
+            if (clusterByCell[cell] <= -2) {
+                clusterByCell[cell] = -2 - clusterByCell[cell];
+            }
+        }
+
+        aggregateClusters();
+    }
+
+    private void aggregateClusters() {
+        int typeCount = VehicleType.values().length;
+
+        if (centerXByCluster.length < clusterCount) {
+            int capacity = Math.max(clusterCount, 2 * centerXByCluster.length);
+            centerXByCluster = new double[capacity];
+            centerYByCluster = new double[capacity];
+            vehicleCountByCluster = new int[capacity];
+            durabilityByCluster = new int[capacity];
+            vehicleCountByClusterAndType = new int[capacity * typeCount];
+        }
+
+        Arrays.fill(centerXByCluster, 0, clusterCount, 0.0D);
+        Arrays.fill(centerYByCluster, 0, clusterCount, 0.0D);
+        Arrays.fill(vehicleCountByCluster, 0, clusterCount, 0);
+        Arrays.fill(durabilityByCluster, 0, clusterCount, 0);
+        Arrays.fill(vehicleCountByClusterAndType, 0, clusterCount * typeCount, 0);
+
+        for (int i = 0; i < occupiedCellCount; ++i) {
+            int cell = occupiedCells[i];
+            int cluster = clusterByCell[cell];
+            if (cluster < 0) {
+                continue;
+            }
+
+            for (int vehicle = headVehicleByCell[cell]; vehicle >= 0; vehicle = nextVehicleByVehicle[vehicle]) {
+                centerXByCluster[cluster] += xByVehicle[vehicle];
+                centerYByCluster[cluster] += yByVehicle[vehicle];
+                ++vehicleCountByCluster[cluster];
+                durabilityByCluster[cluster] += durabilityByVehicle[vehicle];
+                ++vehicleCountByClusterAndType[cluster * typeCount + typeByVehicle[vehicle]];
+            }
+        }
+
+        for (int cluster = 0; cluster < clusterCount; ++cluster) {
+            centerXByCluster[cluster] /= vehicleCountByCluster[cluster];
+            centerYByCluster[cluster] /= vehicleCountByCluster[cluster];
+        }
+    }
+
+    private void computeEdgeMask(int cell) {
+        int edgeMask = 0;
+
+        if (headVehicleByCell[cell] >= 0) {
+            int cellX = cell / rowCount;
+            int cellY = cell % rowCount;
+
+            for (int j = 0; j < FORWARD_DX.length; ++j) {
+                int neighborX = cellX + FORWARD_DX[j];
+                int neighborY = cellY + FORWARD_DY[j];
+
+                if (neighborX < 0 || neighborX >= columnCount || neighborY >= rowCount) {
+                    continue;
+                }
+
+                int neighborCell = neighborX * rowCount + neighborY;
+                if (headVehicleByCell[neighborCell] >= 0 && isLinked(cell, neighborCell)) {
+                    edgeMask |= 1 << j;
+                }
+            }
+        }
+
+        edgeMaskByCell[cell] = edgeMask;
+    }
+
+    private boolean isLinked(int cell, int neighborCell) {
+        for (int vehicle = headVehicleByCell[cell]; vehicle >= 0; vehicle = nextVehicleByVehicle[vehicle]) {
+            for (int neighbor = headVehicleByCell[neighborCell]; neighbor >= 0;
+                 neighbor = nextVehicleByVehicle[neighbor]) {
+                double dx = xByVehicle[vehicle] - xByVehicle[neighbor];
+                double dy = yByVehicle[vehicle] - yByVehicle[neighbor];
+
+                if (dx * dx + dy * dy <= squaredEps) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private int find(int cell) {
+        while (parentByCell[cell] != cell) {
+            parentByCell[cell] = parentByCell[parentByCell[cell]];
+            cell = parentByCell[cell];
+        }
+        return cell;
+    }
+
+    private void union(int cellA, int cellB) {
+        int rootA = find(cellA);
+        int rootB = find(cellB);
+        if (rootA != rootB) {
+            parentByCell[rootA] = rootB;
+        }
+    }
+
+    private void link(int vehicle, int cell) {
+        int head = headVehicleByCell[cell];
+        nextVehicleByVehicle[vehicle] = head;
+        previousVehicleByVehicle[vehicle] = -1;
+        if (head >= 0) {
+            previousVehicleByVehicle[head] = vehicle;
+        }
+        headVehicleByCell[cell] = vehicle;
+        cellByVehicle[vehicle] = cell;
+
+        if (vehicleCountByCell[cell]++ == 0) {
+            occupiedIndexByCell[cell] = occupiedCellCount;
+            occupiedCells[occupiedCellCount++] = cell;
+        }
+
+        markDirty(cell);
+    }
+
+    private void unlink(int vehicle, int cell) {
+        int next = nextVehicleByVehicle[vehicle];
+        int previous = previousVehicleByVehicle[vehicle];
+
+        if (previous >= 0) {
+            nextVehicleByVehicle[previous] = next;
+        } else {
+            headVehicleByCell[cell] = next;
+        }
+        if (next >= 0) {
+            previousVehicleByVehicle[next] = previous;
+        }
+        cellByVehicle[vehicle] = -1;
+
+        if (--vehicleCountByCell[cell] == 0) {
+            int index = occupiedIndexByCell[cell];
+            int lastCell = occupiedCells[--occupiedCellCount];
+            occupiedCells[index] = lastCell;
+            occupiedIndexByCell[lastCell] = index;
+            occupiedIndexByCell[cell] = -1;
+            clusterByCell[cell] = -1;
+        }
+
+        markDirty(cell);
+    }
+
+    private void markDirty(int cell) {
+        if (dirtyByCell[cell]) {
+            return;
+        }
+
+        dirtyByCell[cell] = true;
+        if (dirtyCellCount == dirtyCells.length) {
+            dirtyCells = Arrays.copyOf(dirtyCells, 2 * dirtyCells.length);
+        }
+        dirtyCells[dirtyCellCount++] = cell;
+    }
+
+    private void allocate(int vehicleCapacity) {
+        int previousCapacity = cellByVehicle == null ? 0 : cellByVehicle.length;
+
+        xByVehicle = grow(xByVehicle, vehicleCapacity);
+        yByVehicle = grow(yByVehicle, vehicleCapacity);
+        typeByVehicle = grow(typeByVehicle, vehicleCapacity);
+        durabilityByVehicle = grow(durabilityByVehicle, vehicleCapacity);
+        cellByVehicle = grow(cellByVehicle, vehicleCapacity);
+        nextVehicleByVehicle = grow(nextVehicleByVehicle, vehicleCapacity);
+        previousVehicleByVehicle = grow(previousVehicleByVehicle, vehicleCapacity);
+
+        Arrays.fill(cellByVehicle, previousCapacity, vehicleCapacity, -1);
+    }
+
+    private static double[] grow(double[] array, int capacity) {
+        return array == null ? new double[capacity] : Arrays.copyOf(array, capacity);
+    }
+
+    private static int[] grow(int[] array, int capacity) {
+        return array == null ? new int[capacity] : Arrays.copyOf(array, capacity);
+    }
+}
@@ -0,0 +1,123 @@
+import model.World;
+
+import java.util.Arrays;
+
+/**
+ * Прогноз положения формаций противника.
+ * <p>
+ * Скорость каждой техники противника оценивается по истории её позиций ({@link MotionHistory}) и ограничивается
+ * максимальной скоростью техники с учётом местности (для наземной) или погоды (для воздушной) в точке её нахождения.
+ * Данные всей техники противника складываются в примитивные массивы, после чего центры всех формаций на любой
+ * горизонт прогнозируются за один проход по этим массивам.
+ * <p>
+ * Формации противника определяются кластеризацией ({@link EnemyClusterer}); техника, отнесённая к шуму, в прогноз
+ * не входит.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class EnemyPredictor {
+    private final TerrainWeatherGrid terrainWeatherGrid;
+    private final double worldWidth;
+    private final double worldHeight;
+
+    private int formationCount;
+    private int vehicleCount;
+    private double[] xs = new double[0];
+    private double[] ys = new double[0];
+    private double[] speedXs = new double[0];
+    private double[] speedYs = new double[0];
+    private int[] formations = new int[0];
+
+    public EnemyPredictor(TerrainWeatherGrid terrainWeatherGrid, World world) {
+        this.terrainWeatherGrid = terrainWeatherGrid;
+        worldWidth = world.getWidth();
+        worldHeight = world.getHeight();
+    }
+
+    /**
+     * @return Возвращает количество формаций, для которых строится прогноз.
+     */
+    public int getFormationCount() {
+        return formationCount;
+    }
+
+    /**
+     * Собирает позиции и оценки скорости всей техники противника в текущем тике.
+     */
+    public void update(long myPlayerId, VehicleTable vehicleTable, EnemyClusterer enemyClusterer,
+                       MotionHistory motionHistory, int tickIndex) {
+        ensureCapacity(vehicleTable.size());
+        formationCount = enemyClusterer.getClusterCount();
+        vehicleCount = 0;
+
+        for (long vehicleId = vehicleTable.nextVehicleId(0L); vehicleId >= 0L;
+             vehicleId = vehicleTable.nextVehicleId(vehicleId + 1L)) {
+            int formation = vehicleTable.getPlayerId(vehicleId) == myPlayerId
+                    ? -1
+                    : enemyClusterer.getCluster(vehicleId);
+            if (formation < 0) {
+                continue;
+            }
+
+            double x = vehicleTable.getX(vehicleId);
+            double y = vehicleTable.getY(vehicleId);
+            double speedX = motionHistory.getSpeedX(vehicleId, tickIndex);
+            double speedY = motionHistory.getSpeedY(vehicleId, tickIndex);
+            double speed = StrictMath.hypot(speedX, speedY);
+            double maxSpeed = vehicleTable.getMaxSpeed(vehicleId)
+                    * getSpeedFactor(x, y, vehicleTable.isAerial(vehicleId));
+
+            if (speed > maxSpeed) {
+                speedX *= maxSpeed / speed;
+                speedY *= maxSpeed / speed;
+            }
+
+            xs[vehicleCount] = x;
+            ys[vehicleCount] = y;
+            speedXs[vehicleCount] = speedX;
+            speedYs[vehicleCount] = speedY;
+            formations[vehicleCount] = formation;
+            ++vehicleCount;
+        }
+    }
+
+    /**
+     * Прогнозирует центры всех формаций противника через {@code ticks} тиков. Прогнозируемые позиции отдельной
+     * техники ограничиваются границами мира.
+     *
+     * @param xByFormation     Массив для абсцисс центров; для пустых формаций записывается {@code NaN}.
+     * @param yByFormation     Массив для ординат центров; для пустых формаций записывается {@code NaN}.
+     * @param countByFormation Массив для количества техники в формациях.
+     */
+    public void predict(int ticks, double[] xByFormation, double[] yByFormation, int[] countByFormation) {
+        Arrays.fill(xByFormation, 0, formationCount, 0.0D);
+        Arrays.fill(yByFormation, 0, formationCount, 0.0D);
+        Arrays.fill(countByFormation, 0, formationCount, 0);
+
+        for (int i = 0; i < vehicleCount; ++i) {
+            int formation = formations[i];
+            xByFormation[formation] += Math.max(0.0D, Math.min(worldWidth, xs[i] + speedXs[i] * ticks));
+            yByFormation[formation] += Math.max(0.0D, Math.min(worldHeight, ys[i] + speedYs[i] * ticks));
+            ++countByFormation[formation];
+        }
+
+        for (int formation = 0; formation < formationCount; ++formation) {
+            int count = countByFormation[formation];
+            xByFormation[formation] = count == 0 ? Double.NaN : xByFormation[formation] / count;
+            yByFormation[formation] = count == 0 ? Double.NaN : yByFormation[formation] / count;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (xs.length < capacity) {
+            xs = new double[capacity];
+            ys = new double[capacity];
+            speedXs = new double[capacity];
+            speedYs = new double[capacity];
+            formations = new int[capacity];
+        }
+    }
+
+    private double getSpeedFactor(double x, double y, boolean aerial) {
+        return terrainWeatherGrid.getSpeedFactor(terrainWeatherGrid.cellAt(x, y), aerial);
+    }
+}
@@ -0,0 +1,220 @@
+import model.ActionType;
+import model.Facility;
+import model.FacilityType;
+import model.Game;
+import model.Move;
+import model.VehicleType;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Планирование захвата сооружений и производства техники.
+ * <p>
+ * Формацией считается вся наша наземная техника одного типа (воздушная техника сооружения не захватывает). Стоимость
+ * назначения формации на сооружение равна сумме времени пути (по полю расстояний с учётом местности, для самой
+ * медленной техники формации) и времени захвата при скорости {@code game.facilityCapturePointsPerVehiclePerTick} за
+ * каждую единицу техники, поместившуюся в сооружение. Назначения выбираются жадно в порядке возрастания стоимости.
+ * <p>
+ * На каждом нашем заводе выбирается тип техники, наиболее выгодный против текущего состава армии противника.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class FacilityPlanner {
+    /**
+     * Центры управления дают дополнительные действия и ускоряют ядерные удары, поэтому их захват выгоднее захвата
+     * завода с той же стоимостью.
+     */
+    private static final double CONTROL_CENTER_COST_FACTOR = 0.75D;
+
+    private static final VehicleType[] GROUND_VEHICLE_TYPES = {VehicleType.ARRV, VehicleType.IFV, VehicleType.TANK};
+
+    private final Game game;
+    private final VehicleTypeStats vehicleTypeStats;
+    private final DistanceFieldCache distanceFieldCache;
+    private final int maxCapturingVehicleCount;
+
+    private final BitSet assignedFacilityIds = new BitSet();
+
+    public FacilityPlanner(Game game, VehicleTypeStats vehicleTypeStats, DistanceFieldCache distanceFieldCache) {
+        this.game = game;
+        this.vehicleTypeStats = vehicleTypeStats;
+        this.distanceFieldCache = distanceFieldCache;
+
+        double vehicleSpacing = 3.0D * game.getVehicleRadius();
+        maxCapturingVehicleCount = Math.max(1, (int) (game.getFacilityWidth() / vehicleSpacing)
+                * (int) (game.getFacilityHeight() / vehicleSpacing));
+    }
+
+    /**
+     * @return Возвращает назначение наших наземных формаций на чужие и нейтральные сооружения.
+     */
+    public Map<VehicleType, Facility> assignFormations(
+            long myPlayerId, Facility[] facilities, VehicleTable vehicleTable) {
+        List<Candidate> candidates = new ArrayList<>();
+
+        for (VehicleType vehicleType : GROUND_VEHICLE_TYPES) {
+            int count = 0;
+            double sumX = 0.0D;
+            double sumY = 0.0D;
+            double minSpeed = Double.POSITIVE_INFINITY;
+
+            for (long vehicleId = vehicleTable.nextVehicleId(0L); vehicleId >= 0L;
+                 vehicleId = vehicleTable.nextVehicleId(vehicleId + 1L)) {
+                if (vehicleTable.getPlayerId(vehicleId) == myPlayerId
+                        && vehicleTable.getTypeOrdinal(vehicleId) == vehicleType.ordinal()) {
+                    ++count;
+                    sumX += vehicleTable.getX(vehicleId);
+                    sumY += vehicleTable.getY(vehicleId);
+                    minSpeed = Math.min(minSpeed, vehicleTable.getMaxSpeed(vehicleId));
+                }
+            }
+
+            if (count == 0) {
+                continue;
+            }
+
+            for (Facility facility : facilities) {
+                if (facility.getOwnerPlayerId() == myPlayerId) {
+                    continue;
+                }
+
+                double cost = getTravelTicks(facility, sumX / count, sumY / count, minSpeed)
+                        + getCaptureTicks(facility, count);
+                if (facility.getType() == FacilityType.CONTROL_CENTER) {
+                    cost *= CONTROL_CENTER_COST_FACTOR;
+                }
+
+                candidates.add(new Candidate(vehicleType, facility, cost));
+            }
+        }
+
+        candidates.sort((candidateA, candidateB) -> Double.compare(candidateA.cost, candidateB.cost));
+
+        Map<VehicleType, Facility> facilityByVehicleType = new EnumMap<>(VehicleType.class);
+        assignedFacilityIds.clear();
+
+        for (Candidate candidate : candidates) {
+            int facilityId = (int) candidate.facility.getId();
+
+            if (Double.isInfinite(candidate.cost)
+                    || facilityByVehicleType.containsKey(candidate.vehicleType)
+                    || assignedFacilityIds.get(facilityId)) {
+                continue;
+            }
+
+            assignedFacilityIds.set(facilityId);
+            facilityByVehicleType.put(candidate.vehicleType, candidate.facility);
+        }
+
+        return facilityByVehicleType;
+    }
+
+    /**
+     * @return Возвращает действия настройки производства на наших заводах. Завод перенастраивается, только если он
+     * ещё ничего не производит или производство текущей единицы техники не начато.
+     */
+    public List<Consumer<Move>> scheduleProduction(
+            long myPlayerId, Facility[] facilities, VehicleTable vehicleTable) {
+        List<Consumer<Move>> moves = new ArrayList<>();
+        VehicleType productionType = null;
+
+        for (Facility facility : facilities) {
+            if (facility.getType() != FacilityType.VEHICLE_FACTORY || facility.getOwnerPlayerId() != myPlayerId) {
+                continue;
+            }
+
+            if (productionType == null) {
+                productionType = getBestProductionType(myPlayerId, vehicleTable);
+            }
+
+            if (facility.getVehicleType() == productionType
+                    || facility.getVehicleType() != null && facility.getProductionProgress() > 0) {
+                continue;
+            }
+
+            long facilityId = facility.getId();
+            VehicleType vehicleType = productionType;
+
+            moves.add(move -> {
+                move.setAction(ActionType.SETUP_VEHICLE_PRODUCTION);
+                move.setFacilityId(facilityId);
+                move.setVehicleType(vehicleType);
+            });
+        }
+
+        return moves;
+    }
+
+    /**
+     * @return Возвращает оценку количества тиков, необходимых для захвата сооружения формацией указанного размера,
+     * находящейся внутри него.
+     */
+    public double getCaptureTicks(Facility facility, int vehicleCount) {
+        double remainingCapturePoints = game.getMaxFacilityCapturePoints() - facility.getCapturePoints();
+        int capturingVehicleCount = Math.min(vehicleCount, maxCapturingVehicleCount);
+
+        return remainingCapturePoints / (game.getFacilityCapturePointsPerVehiclePerTick() * capturingVehicleCount);
+    }
+
+    private double getTravelTicks(Facility facility, double x, double y, double speed) {
+        float[] field = distanceFieldCache.getField(facility, DistanceFieldCache.MovementClass.GROUND);
+        return field[distanceFieldCache.getCell(x, y)] / speed;
+    }
+
+    /**
+     * Выбирает тип техники с наибольшей разностью урона, наносимого известной технике противника, и урона,
+     * получаемого от неё.
+     */
+    private VehicleType getBestProductionType(long myPlayerId, VehicleTable vehicleTable) {
+        int[] enemyCountByType = new int[VehicleType.values().length];
+        int enemyCount = 0;
+
+        for (long vehicleId = vehicleTable.nextVehicleId(0L); vehicleId >= 0L;
+             vehicleId = vehicleTable.nextVehicleId(vehicleId + 1L)) {
+            if (vehicleTable.getPlayerId(vehicleId) != myPlayerId) {
+                ++enemyCountByType[vehicleTable.getTypeOrdinal(vehicleId)];
+                ++enemyCount;
+            }
+        }
+
+        VehicleType bestType = VehicleType.TANK;
+        if (enemyCount == 0) {
+            return bestType;
+        }
+
+        double bestScore = Double.NEGATIVE_INFINITY;
+
+        for (VehicleType vehicleType : VehicleType.values()) {
+            int type = vehicleType.ordinal();
+            double score = 0.0D;
+
+            for (int enemyType = 0; enemyType < enemyCountByType.length; ++enemyType) {
+                score += enemyCountByType[enemyType]
+                        * (vehicleTypeStats.getDamage(type, enemyType) - vehicleTypeStats.getDamage(enemyType, type));
+            }
+
+            if (score > bestScore) {
+                bestType = vehicleType;
+                bestScore = score;
+            }
+        }
+
+        return bestType;
+    }
+
+    private static final class Candidate {
+        private final VehicleType vehicleType;
+        private final Facility facility;
+        private final double cost;
+
+        private Candidate(VehicleType vehicleType, Facility facility, double cost) {
+            this.vehicleType = vehicleType;
+            this.facility = facility;
+            this.cost = cost;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+import model.ActionType;
+import model.Game;
+import model.Move;
+import model.Vehicle;
+import model.VehicleType;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Управление группами юнитов.
+ * <p>
+ * Каждому типу нашей техники соответствует постоянная группа с индексом {@code ordinal + 1}. Состав групп
+ * отслеживается по полю {@code groups} новой и изменившейся техники, поэтому формацию можно выделить действием
+ * {@code ActionType.CLEAR_AND_SELECT} с указанием группы. Группа типа считается пригодной для выделения, только пока в
+ * неё входит вся наша техника этого типа.
+ * <p>
+ * Выделение группой стоит столько же действий, сколько выделение рамкой с фильтром по типу, поэтому отдельных действий
+ * на назначение групп не тратится: пока группа типа неполна, формация выделяется рамкой, и группа назначается уже
+ * выделенной формации вслед за приказом ей (см. {@link #assignGroup(Move, VehicleType)}). Так новая техника
+ * добавляется в группу при следующем приказе формации, а не после появления каждого юнита.
+ * <p>
+ * Членство техники в группах хранится маской групп из двух слов (см. {@link Vehicle#getGroupMask(int)}), а состав
+ * каждой группы --- битовым множеством идентификаторов техники.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class GroupManager {
+    private static final VehicleType[] VEHICLE_TYPES = VehicleType.values();
+
+    private static final byte NO_TYPE = -1;
+
+    private final int maxUnitGroup;
+
+    private final BitSet[] vehicleIdsByGroup;
+    private long[] groupMaskByVehicleId = new long[1024 * Vehicle.GROUP_MASK_WORD_COUNT];
+    private byte[] allyTypeOrdinalByVehicleId = newTypeOrdinals(1024);
+
+    private final int[] allyCountByType = new int[VEHICLE_TYPES.length];
+    private final int[] groupedAllyCountByType = new int[VEHICLE_TYPES.length];
+
+    public GroupManager(Game game) {
+        maxUnitGroup = game.getMaxUnitGroup();
+
+        vehicleIdsByGroup = new BitSet[maxUnitGroup + 1];
+        for (int group = 0; group <= maxUnitGroup; ++group) {
+            vehicleIdsByGroup[group] = new BitSet();
+        }
+    }
+
+    /**
+     * Назначает группу типа выделенной технике, если в группу входит не вся наша техника этого типа. Должен вызываться,
+     * только когда выделена в точности наша техника этого типа, например сразу после приказа формации, выделенной
+     * рамкой.
+     */
+    public void assignGroup(Move move, VehicleType vehicleType) {
+        int type = vehicleType.ordinal();
+        int group = type + 1;
+
+        if (group <= maxUnitGroup && allyCountByType[type] > 0 && !isComplete(type)) {
+            move.setAction(ActionType.ASSIGN);
+            move.setGroup(group);
+        }
+    }
+
+    /**
+     * Актуализирует состав групп. Должен вызываться для каждой новой и каждой изменившейся техники.
+     */
+    public void accept(long vehicleId, int typeOrdinal, boolean ally, long lowGroupMask, long highGroupMask) {
+        int index = (int) vehicleId;
+        int maskIndex = index * Vehicle.GROUP_MASK_WORD_COUNT;
+        if (maskIndex >= groupMaskByVehicleId.length) {
+            int capacity = Math.max(index + 1, 2 * allyTypeOrdinalByVehicleId.length);
+            groupMaskByVehicleId = Arrays.copyOf(groupMaskByVehicleId, capacity * Vehicle.GROUP_MASK_WORD_COUNT);
+
+            byte[] typeOrdinals = newTypeOrdinals(capacity);
+            System.arraycopy(allyTypeOrdinalByVehicleId, 0, typeOrdinals, 0, allyTypeOrdinalByVehicleId.length);
+            allyTypeOrdinalByVehicleId = typeOrdinals;
+        }
+
+        if (ally && allyTypeOrdinalByVehicleId[index] == NO_TYPE) {
+            allyTypeOrdinalByVehicleId[index] = (byte) typeOrdinal;
+            ++allyCountByType[typeOrdinal];
+        }
+
+        updateGroupMask(index, maskIndex, lowGroupMask, highGroupMask);
+    }
+
+    /**
+     * Убирает уничтоженную технику из всех групп.
+     */
+    public void remove(long vehicleId) {
+        int index = (int) vehicleId;
+        if (index >= allyTypeOrdinalByVehicleId.length) {
+            return;
+        }
+
+        updateGroupMask(index, index * Vehicle.GROUP_MASK_WORD_COUNT, 0L, 0L);
+
+        int type = allyTypeOrdinalByVehicleId[index];
+        if (type != NO_TYPE) {
+            allyTypeOrdinalByVehicleId[index] = NO_TYPE;
+            --allyCountByType[type];
+        }
+    }
+
+    /**
+     * @return Возвращает группу, назначенную типу техники, или {@code 0}, если в группу входит не вся наша техника
+     * этого типа (назначение ещё не подтверждено симулятором или появилась новая техника).
+     */
+    public int getGroup(VehicleType vehicleType) {
+        int type = vehicleType.ordinal();
+        return type + 1 <= maxUnitGroup && isComplete(type) ? type + 1 : 0;
+    }
+
+    /**
+     * @return Возвращает идентификаторы техники в группе в виде битового множества. Возвращаемое множество не должно
+     * изменяться.
+     */
+    public BitSet getVehicleIds(int group) {
+        return vehicleIdsByGroup[group];
+    }
+
+    /**
+     * Выделяет группу одним действием.
+     */
+    public static void select(Move move, int group) {
+        move.setAction(ActionType.CLEAR_AND_SELECT);
+        move.setGroup(group);
+    }
+
+    private boolean isComplete(int type) {
+        return allyCountByType[type] > 0 && groupedAllyCountByType[type] == allyCountByType[type];
+    }
+
+    private void updateGroupMask(int index, int maskIndex, long lowGroupMask, long highGroupMask) {
+        boolean wasGrouped = isInTypeGroup(index);
+
+        updateGroupMaskWord(index, maskIndex, 0, lowGroupMask);
+        updateGroupMaskWord(index, maskIndex + 1, 1, highGroupMask);
+
+        boolean grouped = isInTypeGroup(index);
+        if (grouped != wasGrouped) {
+            groupedAllyCountByType[allyTypeOrdinalByVehicleId[index]] += grouped ? 1 : -1;
+        }
+    }
+
+    private void updateGroupMaskWord(int index, int maskIndex, int word, long groupMask) {
+        long changedGroupMask = groupMaskByVehicleId[maskIndex] ^ groupMask;
+        groupMaskByVehicleId[maskIndex] = groupMask;
+
+        for (; changedGroupMask != 0L; changedGroupMask &= changedGroupMask - 1L) {
+            int group = word * Long.SIZE + Long.numberOfTrailingZeros(changedGroupMask) + 1;
+            if (group <= maxUnitGroup) {
+                vehicleIdsByGroup[group].flip(index);
+            }
+        }
+    }
+
+    /**
+     * @return Возвращает {@code true}, если техника наша и входит в группу своего типа.
+     */
+    private boolean isInTypeGroup(int index) {
+        int type = allyTypeOrdinalByVehicleId[index];
+        return type != NO_TYPE && type + 1 <= maxUnitGroup && vehicleIdsByGroup[type + 1].get(index);
+    }
+
+    private static byte[] newTypeOrdinals(int capacity) {
+        byte[] typeOrdinals = new byte[capacity];
+        Arrays.fill(typeOrdinals, NO_TYPE);
+        return typeOrdinals;
+    }
+}
@@ -0,0 +1,128 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Выполнение отложенных вычислений в тиках, когда действие совершить нельзя.
+ * <p>
+ * Задачи ставятся в очередь по имени: повторная постановка задачи с тем же именем заменяет её, сохраняя место в
+ * очереди. Для каждого имени хранится оценка стоимости выполнения, которая уточняется экспоненциальным сглаживанием
+ * по фактическому времени. При вызове {@link #runIdle(long)} задачи выполняются в порядке очереди, если их оценка
+ * помещается в остаток бюджета; задача, которая не помещается даже в весь бюджет, выполняется, только если стоит
+ * в очереди первой, чтобы она не откладывалась бесконечно.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class IdleTaskScheduler {
+    private static final double COST_SMOOTHING_FACTOR = 0.25D;
+
+    private final Map<String, Task> taskByName = new HashMap<>();
+    private final List<Task> pendingTasks = new ArrayList<>();
+
+    /**
+     * Ставит задачу в очередь.
+     *
+     * @param initialCostNanos Начальная оценка стоимости задачи, используется до первого выполнения задачи с этим
+     *                         именем.
+     */
+    public void submit(String name, long initialCostNanos, Runnable runnable) {
+        Task task = taskByName.get(name);
+        if (task == null) {
+            task = new Task(initialCostNanos);
+            taskByName.put(name, task);
+        }
+
+        task.runnable = runnable;
+
+        if (!task.pending) {
+            task.pending = true;
+            pendingTasks.add(task);
+        }
+    }
+
+    /**
+     * Убирает задачу из очереди, если она ещё не выполнена. Оценка её стоимости сохраняется.
+     */
+    public void cancel(String name) {
+        Task task = taskByName.get(name);
+        if (task != null && task.pending) {
+            task.pending = false;
+            task.runnable = null;
+            pendingTasks.remove(task);
+        }
+    }
+
+    /**
+     * Выполняет задачи из очереди, пока их оценки помещаются в бюджет.
+     *
+     * @return Возвращает количество выполненных задач.
+     */
+    public int runIdle(long budgetNanos) {
+        long startNanos = System.nanoTime();
+        int executedTaskCount = 0;
+        boolean stopped = false;
+
+        int taskCount = pendingTasks.size();
+        int keptTaskCount = 0;
+
+        for (int i = 0; i < taskCount; ++i) {
+            Task task = pendingTasks.get(i);
+
+            long taskStartNanos = System.nanoTime();
+            long remainingNanos = budgetNanos - (taskStartNanos - startNanos);
+            double estimatedCostNanos = task.estimatedCostNanos;
+
+            boolean fits = estimatedCostNanos <= remainingNanos;
+            boolean oversized = i == 0 && estimatedCostNanos > budgetNanos;
+
+            if (stopped || !fits && !oversized) {
+                pendingTasks.set(keptTaskCount++, task);
+                continue;
+            }
+
+            Runnable runnable = task.runnable;
+            task.pending = false;
+            task.runnable = null;
+            runnable.run();
+            ++executedTaskCount;
+
+            long costNanos = System.nanoTime() - taskStartNanos;
+            task.estimatedCostNanos = estimatedCostNanos + COST_SMOOTHING_FACTOR * (costNanos - estimatedCostNanos);
+
+            stopped = oversized;
+        }
+
+        // Задачи, поставленные в очередь во время выполнения, переносятся вслед за оставшимися.
+        for (int i = taskCount; i < pendingTasks.size(); ++i) {
+            pendingTasks.set(keptTaskCount++, pendingTasks.get(i));
+        }
+
+        while (pendingTasks.size() > keptTaskCount) {
+            pendingTasks.remove(pendingTasks.size() - 1);
+        }
+
+        return executedTaskCount;
+    }
+
+    /**
+     * @return Возвращает текущую оценку стоимости задачи или {@code NaN}, если задача с таким именем не ставилась.
+     */
+    public double getEstimatedCostNanos(String name) {
+        Task task = taskByName.get(name);
+        return task == null ? Double.NaN : task.estimatedCostNanos;
+    }
+
+    public int getPendingTaskCount() {
+        return pendingTasks.size();
+    }
+
+    private static final class Task {
+        private double estimatedCostNanos;
+        private Runnable runnable;
+        private boolean pending;
+
+        private Task(double estimatedCostNanos) {
+            this.estimatedCostNanos = estimatedCostNanos;
+        }
+    }
+}
@@ -0,0 +1,350 @@
+import model.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Прогрев JIT-компилятора до первого настоящего тика.
+ * <p>
+ * По константам {@link Game} строится синтетическая партия: два игрока с начальной расстановкой техники всех типов,
+ * случайная карта местности и погоды и нейтральные сооружения в центре. Партия проигрывается отдельным экземпляром
+ * стратегии (состояние основного экземпляра не затрагивается): в нулевом тике передаётся вся техника, в следующих ---
+ * обновления части техники. В каждом тике также декодируются записи всех сообщений протокола и кодируется ход, чтобы
+ * прогреть {@link ProtocolCodec}. Когда синтетическая партия заканчивается, начинается новая с новым экземпляром
+ * стратегии, пока не истечёт бюджет времени.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class JitWarmUp {
+    private static final long MY_PLAYER_ID = 1L;
+    private static final long OPPONENT_PLAYER_ID = 2L;
+    private static final int VEHICLE_COUNT_PER_TYPE = 100;
+    private static final int VEHICLE_COLUMN_COUNT = 10;
+    private static final double VEHICLE_SPACING = 6.0D;
+    private static final double FORMATION_SLOT_SIZE = 74.0D;
+    private static final double FORMATION_MARGIN = 18.0D;
+    private static final int TICK_COUNT_PER_GAME = 300;
+    private static final int UPDATE_STRIDE = 4;
+
+    private final Game game;
+    private final Supplier<Strategy> strategyFactory;
+    private final VehicleTypeStats vehicleTypeStats;
+    private final Random random;
+
+    private final byte[] decoderBuffer = new byte[Math.max(
+            Math.max(ProtocolCodec.VEHICLE_SIZE, ProtocolCodec.VEHICLE_UPDATE_SIZE),
+            Math.max(Math.max(ProtocolCodec.PLAYER_SIZE, ProtocolCodec.FACILITY_SIZE), ProtocolCodec.MOVE_SIZE)
+    )];
+
+    public JitWarmUp(Game game, Supplier<Strategy> strategyFactory) {
+        this.game = game;
+        this.strategyFactory = strategyFactory;
+        vehicleTypeStats = new VehicleTypeStats(game);
+        random = new Random(game.getRandomSeed());
+    }
+
+    /**
+     * Проигрывает синтетические партии, пока не истечёт бюджет. Бюджет проверяется после каждого тика. Исключение,
+     * брошенное стратегией на синтетических данных, прерывает прогрев, но не пробрасывается.
+     */
+    public Report run(long budgetNanos) {
+        long startNanos = System.nanoTime();
+        long compilationTimeMillis = getCompilationTimeMillis();
+        long compilationCount = getCompilationCount();
+        int tickCount = 0;
+        RuntimeException failure = null;
+
+        try {
+            while (System.nanoTime() - startNanos < budgetNanos) {
+                tickCount += playGame(startNanos + budgetNanos);
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+
+        return new Report(
+                System.nanoTime() - startNanos, tickCount,
+                compilationTimeMillis < 0L ? -1L : getCompilationTimeMillis() - compilationTimeMillis,
+                compilationCount < 0L ? -1L : getCompilationCount() - compilationCount,
+                failure
+        );
+    }
+
+    private int playGame(long deadlineNanos) {
+        Strategy strategy = strategyFactory.get();
+        TerrainType[][] terrainByCellXY = createTerrain();
+        WeatherType[][] weatherByCellXY = createWeather();
+        Facility[] facilities = createFacilities();
+        List<Vehicle> vehicles = createVehicles();
+
+        Vehicle[] newVehicles = vehicles.toArray(new Vehicle[0]);
+        double[] xs = new double[vehicles.size()];
+        double[] ys = new double[vehicles.size()];
+
+        for (int i = 0; i < vehicles.size(); ++i) {
+            xs[i] = vehicles.get(i).getX();
+            ys[i] = vehicles.get(i).getY();
+        }
+
+        int tickIndex = 0;
+
+        try {
+            for (; tickIndex < TICK_COUNT_PER_GAME && System.nanoTime() < deadlineNanos; ++tickIndex) {
+                VehicleUpdate[] vehicleUpdates = tickIndex == 0
+                        ? new VehicleUpdate[0]
+                        : createVehicleUpdates(vehicles, xs, ys, tickIndex);
+
+                World world = new World(
+                        tickIndex, game.getTickCount(), game.getWorldWidth(), game.getWorldHeight(), new Player[] {
+                                createPlayer(MY_PLAYER_ID, true), createPlayer(OPPONENT_PLAYER_ID, false)
+                        },
+                        tickIndex == 0 ? newVehicles : new Vehicle[0], vehicleUpdates, terrainByCellXY, weatherByCellXY,
+                        facilities
+                );
+
+                Move move = new Move();
+                strategy.move(world.getMyPlayer(), world, game, move);
+
+                exerciseCodec(move, newVehicles.length);
+            }
+        } finally {
+            close(strategy);
+        }
+
+        return tickIndex;
+    }
+
+    /**
+     * Освобождает ресурсы экземпляра стратегии (например, потоки), если стратегия их держит.
+     */
+    private static void close(Strategy strategy) {
+        if (strategy instanceof Closeable) {
+            try {
+                ((Closeable) strategy).close();
+            } catch (IOException ignored) {
+                // Экземпляр больше не используется, ошибка закрытия на прогрев не влияет.
+            }
+        }
+    }
+
+    private void exerciseCodec(Move move, int vehicleCount) {
+        ProtocolCodec.encodeMove(move, decoderBuffer, 0);
+
+        for (int i = 0; i < vehicleCount; ++i) {
+            ProtocolCodec.decodeVehicle(decoderBuffer, 0, 0L, 0L);
+            ProtocolCodec.decodeVehicleUpdate(decoderBuffer, 0, 0L, 0L);
+        }
+
+        ProtocolCodec.decodePlayer(decoderBuffer, 0);
+        ProtocolCodec.decodeFacility(decoderBuffer, 0);
+    }
+
+    private Player createPlayer(long playerId, boolean me) {
+        return new Player(playerId, me, false, 0, 0, game.getBaseTacticalNuclearStrikeCooldown(), -1L, -1, -1.0D,
+                -1.0D);
+    }
+
+    private List<Vehicle> createVehicles() {
+        List<Vehicle> vehicles = new ArrayList<>(2 * VehicleType.values().length * VEHICLE_COUNT_PER_TYPE);
+        long id = 1L;
+
+        for (long playerId : new long[] {MY_PLAYER_ID, OPPONENT_PLAYER_ID}) {
+            for (VehicleType vehicleType : VehicleType.values()) {
+                int slot = vehicleType.ordinal();
+                double left = FORMATION_MARGIN + (slot % 3) * FORMATION_SLOT_SIZE;
+                double top = FORMATION_MARGIN + (slot / 3) * FORMATION_SLOT_SIZE;
+
+                for (int i = 0; i < VEHICLE_COUNT_PER_TYPE; ++i) {
+                    double x = left + (i % VEHICLE_COLUMN_COUNT) * VEHICLE_SPACING;
+                    double y = top + (i / VEHICLE_COLUMN_COUNT) * VEHICLE_SPACING;
+
+                    if (playerId == OPPONENT_PLAYER_ID) {
+                        x = game.getWorldWidth() - x;
+                        y = game.getWorldHeight() - y;
+                    }
+
+                    vehicles.add(createVehicle(id++, playerId, vehicleType, x, y));
+                }
+            }
+        }
+
+        return vehicles;
+    }
+
+    private Vehicle createVehicle(long id, long playerId, VehicleType vehicleType, double x, double y) {
+        int type = vehicleType.ordinal();
+        double visionRange = vehicleTypeStats.getVisionRange(type);
+        double groundAttackRange = vehicleTypeStats.getGroundAttackRange(type);
+        double aerialAttackRange = vehicleTypeStats.getAerialAttackRange(type);
+
+        return new Vehicle(
+                id, x, y, game.getVehicleRadius(), playerId, vehicleTypeStats.getDurability(type),
+                vehicleTypeStats.getDurability(type), vehicleTypeStats.getSpeed(type), visionRange,
+                visionRange * visionRange, groundAttackRange, groundAttackRange * groundAttackRange, aerialAttackRange,
+                aerialAttackRange * aerialAttackRange, vehicleTypeStats.getGroundDamage(type),
+                vehicleTypeStats.getAerialDamage(type), vehicleTypeStats.getGroundDefence(type),
+                vehicleTypeStats.getAerialDefence(type), vehicleTypeStats.getAttackCooldownTicks(type), 0,
+                vehicleType, vehicleTypeStats.isAerial(type), false, 0L, 0L
+        );
+    }
+
+    /**
+     * Сдвигает каждую {@code UPDATE_STRIDE}-ю технику (со сдвигом по номеру тика) в сторону центра карты.
+     */
+    private VehicleUpdate[] createVehicleUpdates(List<Vehicle> vehicles, double[] xs, double[] ys, int tickIndex) {
+        List<VehicleUpdate> vehicleUpdates = new ArrayList<>(vehicles.size() / UPDATE_STRIDE + 1);
+        double centerX = game.getWorldWidth() / 2.0D;
+        double centerY = game.getWorldHeight() / 2.0D;
+
+        for (int i = tickIndex % UPDATE_STRIDE; i < vehicles.size(); i += UPDATE_STRIDE) {
+            Vehicle vehicle = vehicles.get(i);
+            double speed = vehicle.getMaxSpeed() * UPDATE_STRIDE;
+
+            xs[i] += Math.signum(centerX - xs[i]) * Math.min(speed, Math.abs(centerX - xs[i]));
+            ys[i] += Math.signum(centerY - ys[i]) * Math.min(speed, Math.abs(centerY - ys[i]));
+
+            vehicleUpdates.add(new VehicleUpdate(
+                    vehicle.getId(), xs[i], ys[i], vehicle.getDurability(), 0, vehicle.getPlayerId() == MY_PLAYER_ID,
+                    0L, 0L
+            ));
+        }
+
+        return vehicleUpdates.toArray(new VehicleUpdate[0]);
+    }
+
+    private TerrainType[][] createTerrain() {
+        TerrainType[] terrainTypes = TerrainType.values();
+        TerrainType[][] terrainByCellXY = new TerrainType[game.getTerrainWeatherMapColumnCount()][];
+
+        for (int x = 0; x < terrainByCellXY.length; ++x) {
+            terrainByCellXY[x] = new TerrainType[game.getTerrainWeatherMapRowCount()];
+            for (int y = 0; y < terrainByCellXY[x].length; ++y) {
+                terrainByCellXY[x][y] = terrainTypes[random.nextInt(terrainTypes.length)];
+            }
+        }
+
+        return terrainByCellXY;
+    }
+
+    private WeatherType[][] createWeather() {
+        WeatherType[] weatherTypes = WeatherType.values();
+        WeatherType[][] weatherByCellXY = new WeatherType[game.getTerrainWeatherMapColumnCount()][];
+
+        for (int x = 0; x < weatherByCellXY.length; ++x) {
+            weatherByCellXY[x] = new WeatherType[game.getTerrainWeatherMapRowCount()];
+            for (int y = 0; y < weatherByCellXY[x].length; ++y) {
+                weatherByCellXY[x][y] = weatherTypes[random.nextInt(weatherTypes.length)];
+            }
+        }
+
+        return weatherByCellXY;
+    }
+
+    private Facility[] createFacilities() {
+        double left = game.getWorldWidth() / 2.0D - game.getFacilityWidth();
+        double top = game.getWorldHeight() / 2.0D - game.getFacilityHeight();
+
+        return new Facility[] {
+                new Facility(1L, FacilityType.CONTROL_CENTER, -1L, left, top, 0.0D, null, 0),
+                new Facility(2L, FacilityType.VEHICLE_FACTORY, -1L, left + game.getFacilityWidth(), top, 0.0D, null,
+                        0),
+                new Facility(3L, FacilityType.VEHICLE_FACTORY, -1L, left, top + game.getFacilityHeight(), 0.0D, null,
+                        0),
+                new Facility(4L, FacilityType.CONTROL_CENTER, -1L, left + game.getFacilityWidth(),
+                        top + game.getFacilityHeight(), 0.0D, null, 0)
+        };
+    }
+
+    private static long getCompilationTimeMillis() {
+        CompilationMXBean compilationMXBean = ManagementFactory.getCompilationMXBean();
+        return compilationMXBean != null && compilationMXBean.isCompilationTimeMonitoringSupported()
+                ? compilationMXBean.getTotalCompilationTime()
+                : -1L;
+    }
+
+    /**
+     * @return Возвращает количество методов, скомпилированных JIT с момента запуска, или {@code -1}, если счётчик
+     * недоступен. Стандартный {@link CompilationMXBean} даёт только время компиляции, а количество есть лишь в
+     * {@code HotspotCompilationMBean} из пакета {@code sun.management}. Пакет открыт в Java 8; начиная с Java 9 он
+     * доступен только с ключом {@code --add-exports java.management/sun.management=ALL-UNNAMED}, без которого
+     * возвращается {@code -1}.
+     */
+    private static long getCompilationCount() {
+        try {
+            Object compilationMBean = Class.forName("sun.management.ManagementFactoryHelper")
+                    .getMethod("getHotspotCompilationMBean").invoke(null);
+            return ((Number) Class.forName("sun.management.HotspotCompilationMBean")
+                    .getMethod("getTotalCompileCount").invoke(compilationMBean)).longValue();
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError ignored) {
+            return -1L;
+        }
+    }
+
+    /**
+     * Результат прогрева.
+     */
+    public static final class Report {
+        private final long elapsedNanos;
+        private final int tickCount;
+        private final long compilationTimeMillis;
+        private final long compilationCount;
+        private final RuntimeException failure;
+
+        private Report(long elapsedNanos, int tickCount, long compilationTimeMillis, long compilationCount,
+                       RuntimeException failure) {
+            this.elapsedNanos = elapsedNanos;
+            this.tickCount = tickCount;
+            this.compilationTimeMillis = compilationTimeMillis;
+            this.compilationCount = compilationCount;
+            this.failure = failure;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * @return Возвращает количество проигранных синтетических тиков.
+         */
+        public int getTickCount() {
+            return tickCount;
+        }
+
+        /**
+         * @return Возвращает время работы JIT-компилятора за время прогрева или {@code -1}, если оно недоступно.
+         */
+        public long getCompilationTimeMillis() {
+            return compilationTimeMillis;
+        }
+
+        /**
+         * @return Возвращает количество методов, скомпилированных за время прогрева, или {@code -1}, если счётчик
+         * недоступен (см. {@link JitWarmUp#getCompilationCount()}).
+         */
+        public long getCompilationCount() {
+            return compilationCount;
+        }
+
+        /**
+         * @return Возвращает исключение, прервавшее прогрев, или {@code null}.
+         */
+        public RuntimeException getFailure() {
+            return failure;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "JIT warm-up: %d ms, %d ticks, %s compilations, %d ms compiling%s.",
+                    elapsedNanos / 1_000_000L, tickCount,
+                    compilationCount < 0L ? "unknown" : Long.toString(compilationCount), compilationTimeMillis,
+                    failure == null ? "" : ", stopped by " + failure
+            );
+        }
+    }
+}
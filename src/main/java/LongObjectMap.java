@@ -0,0 +1,113 @@
+import java.util.Arrays;
+
+/**
+ * Отображение из {@code long} в объекты с открытой адресацией и линейным пробированием.
+ * <p>
+ * Ключи хранятся в примитивном массиве, поэтому ни поиск, ни вставка не создают объектов (в отличие от
+ * {@code Map<Long, V>}, упаковывающего ключ при каждом обращении). Значения {@code null} не хранятся: признаком
+ * свободной ячейки служит отсутствие значения. Удаление не поддерживается, так как кэши декодера только пополняются
+ * и обновляются.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class LongObjectMap<V> {
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+
+    public LongObjectMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize Ожидаемое количество элементов, которое поместится без перестроения таблицы.
+     */
+    public LongObjectMap(int expectedSize) {
+        allocate(Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, expectedSize) * 2 - 1) << 1));
+    }
+
+    /**
+     * @return Возвращает значение по ключу или {@code null}, если ключ отсутствует.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        for (int slot = getSlot(key); values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return (V) values[slot];
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Сохраняет значение по ключу, заменяя предыдущее.
+     *
+     * @return Возвращает предыдущее значение или {@code null}, если ключ отсутствовал.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Argument 'value' is null.");
+        }
+
+        int slot = getSlot(key);
+        for (; values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                V previousValue = (V) values[slot];
+                values[slot] = value;
+                return previousValue;
+            }
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+
+        if (++size * 2 > values.length) {
+            rehash(values.length * 2);
+        }
+
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    private int getSlot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ hash >>> 32) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    private void rehash(int capacity) {
+        long[] previousKeys = keys;
+        Object[] previousValues = values;
+
+        allocate(capacity);
+
+        for (int i = 0; i < previousValues.length; ++i) {
+            if (previousValues[i] != null) {
+                int slot = getSlot(previousKeys[i]);
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+
+                keys[slot] = previousKeys[i];
+                values[slot] = previousValues[i];
+            }
+        }
+    }
+}
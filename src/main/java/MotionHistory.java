@@ -0,0 +1,285 @@
+import model.VehicleType;
+
+import java.util.Arrays;
+
+/**
+ * История перемещений техники.
+ * <p>
+ * Для каждой техники хранится кольцевой буфер из последних {@code capacity} различных позиций вместе с тиками, в
+ * которые они были получены. Все данные лежат в примитивных массивах, индексированных идентификатором техники
+ * (идентификаторы выдаются симулятором последовательно, начиная с единицы), поэтому запись и все запросы выполняются
+ * за O(1) без упаковки значений.
+ * <p>
+ * Для каждой формации (вся техника одного типа одной из сторон) дополнительно накапливается суммарное смещение её
+ * техники и хранится такой же кольцевой буфер накопленных смещений по тикам. Поэтому средняя скорость, направление
+ * движения и признак остановки формации тоже вычисляются за O(1), без обхода её техники. Появление и уничтожение
+ * техники не искажает скорость формации, так как учитываются только смещения, а не положение её центра.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class MotionHistory {
+    private static final int INITIAL_VEHICLE_CAPACITY = 1024;
+    private static final int TYPE_COUNT = VehicleType.values().length;
+    private static final int FORMATION_COUNT = 2 * TYPE_COUNT;
+
+    private final int capacity;
+
+    private int[] tickByEntry;
+    private double[] xByEntry;
+    private double[] yByEntry;
+
+    private int[] newestEntryByVehicle;
+    private int[] entryCountByVehicle;
+    private byte[] formationByVehicle;
+
+    private final int[] vehicleCountByFormation = new int[FORMATION_COUNT];
+    private final double[] shiftXByFormation = new double[FORMATION_COUNT];
+    private final double[] shiftYByFormation = new double[FORMATION_COUNT];
+    private final int[] latestMoveTickByFormation = new int[FORMATION_COUNT];
+
+    private final int[] tickByFormationEntry;
+    private final double[] shiftXByFormationEntry;
+    private final double[] shiftYByFormationEntry;
+    private final int[] newestEntryByFormation = new int[FORMATION_COUNT];
+    private final int[] entryCountByFormation = new int[FORMATION_COUNT];
+
+    private int latestAllyMoveTick = -1;
+    private int latestEnemyMoveTick = -1;
+
+    /**
+     * @param capacity Количество позиций, хранимых для каждой техники.
+     */
+    public MotionHistory(int capacity) {
+        this.capacity = capacity;
+        allocate(INITIAL_VEHICLE_CAPACITY);
+
+        tickByFormationEntry = new int[FORMATION_COUNT * capacity];
+        shiftXByFormationEntry = new double[FORMATION_COUNT * capacity];
+        shiftYByFormationEntry = new double[FORMATION_COUNT * capacity];
+        Arrays.fill(latestMoveTickByFormation, -1);
+    }
+
+    /**
+     * Запоминает позицию новой или изменившейся техники. Если позиция не изменилась, ничего не происходит.
+     */
+    public void record(long vehicleId, int typeOrdinal, double x, double y, int tickIndex, boolean ally) {
+        int vehicleIndex = (int) vehicleId;
+        if (vehicleIndex >= newestEntryByVehicle.length) {
+            allocate(Math.max(vehicleIndex + 1, 2 * newestEntryByVehicle.length));
+        }
+
+        int base = vehicleIndex * capacity;
+        int entryCount = entryCountByVehicle[vehicleIndex];
+        int formation = getFormation(ally, typeOrdinal);
+
+        if (entryCount > 0) {
+            int newestEntry = base + newestEntryByVehicle[vehicleIndex];
+            if (xByEntry[newestEntry] == x && yByEntry[newestEntry] == y) {
+                return;
+            }
+
+            recordFormationShift(formation, x - xByEntry[newestEntry], y - yByEntry[newestEntry], tickIndex);
+        } else {
+            formationByVehicle[vehicleIndex] = (byte) formation;
+            ++vehicleCountByFormation[formation];
+            latestMoveTickByFormation[formation] = Math.max(latestMoveTickByFormation[formation], tickIndex);
+        }
+
+        if (ally) {
+            latestAllyMoveTick = Math.max(latestAllyMoveTick, tickIndex);
+        } else {
+            latestEnemyMoveTick = Math.max(latestEnemyMoveTick, tickIndex);
+        }
+
+        int slot = entryCount == 0 ? 0 : (newestEntryByVehicle[vehicleIndex] + 1) % capacity;
+        newestEntryByVehicle[vehicleIndex] = slot;
+        entryCountByVehicle[vehicleIndex] = Math.min(entryCount + 1, capacity);
+
+        tickByEntry[base + slot] = tickIndex;
+        xByEntry[base + slot] = x;
+        yByEntry[base + slot] = y;
+    }
+
+    /**
+     * Забывает историю уничтоженной или скрывшейся техники.
+     */
+    public void remove(long vehicleId) {
+        int vehicleIndex = (int) vehicleId;
+        if (vehicleIndex < entryCountByVehicle.length && entryCountByVehicle[vehicleIndex] > 0) {
+            entryCountByVehicle[vehicleIndex] = 0;
+            --vehicleCountByFormation[formationByVehicle[vehicleIndex]];
+        }
+    }
+
+    /**
+     * @return Возвращает {@code true}, если техника не меняла позицию дольше {@code ticks} тиков.
+     */
+    public boolean isStuck(long vehicleId, int tickIndex, int ticks) {
+        return tickIndex - getLastMoveTick(vehicleId) > ticks;
+    }
+
+    /**
+     * @return Возвращает {@code true}, если ни одна наша техника не меняла позицию дольше {@code ticks} тиков.
+     */
+    public boolean isAllyArmyStuck(int tickIndex, int ticks) {
+        return tickIndex - latestAllyMoveTick > ticks;
+    }
+
+    /**
+     * @return Возвращает {@code true}, если ни одна техника противника не меняла позицию дольше {@code ticks} тиков.
+     */
+    public boolean isEnemyArmyStuck(int tickIndex, int ticks) {
+        return tickIndex - latestEnemyMoveTick > ticks;
+    }
+
+    /**
+     * @return Возвращает тик последнего изменения позиции техники или {@code -1}, если история пуста.
+     */
+    public int getLastMoveTick(long vehicleId) {
+        int vehicleIndex = (int) vehicleId;
+        if (vehicleIndex >= entryCountByVehicle.length || entryCountByVehicle[vehicleIndex] == 0) {
+            return -1;
+        }
+
+        return tickByEntry[vehicleIndex * capacity + newestEntryByVehicle[vehicleIndex]];
+    }
+
+    /**
+     * @return Возвращает среднюю скорость техники по оси абсцисс за тик между самой старой сохранённой позицией и
+     * текущим тиком. Остановившаяся техника постепенно «затухает» до нулевой скорости.
+     */
+    public double getSpeedX(long vehicleId, int tickIndex) {
+        return getSpeed(vehicleId, tickIndex, xByEntry);
+    }
+
+    /**
+     * @return Возвращает среднюю скорость техники по оси ординат за тик (см. {@link #getSpeedX(long, int)}).
+     */
+    public double getSpeedY(long vehicleId, int tickIndex) {
+        return getSpeed(vehicleId, tickIndex, yByEntry);
+    }
+
+    /**
+     * @return Возвращает направление движения техники в радианах или {@code NaN}, если техника не двигалась.
+     */
+    public double getHeading(long vehicleId, int tickIndex) {
+        double speedX = getSpeedX(vehicleId, tickIndex);
+        double speedY = getSpeedY(vehicleId, tickIndex);
+        return speedX == 0.0D && speedY == 0.0D ? Double.NaN : StrictMath.atan2(speedY, speedX);
+    }
+
+    /**
+     * @return Возвращает {@code true}, если ни одна техника формации не меняла позицию дольше {@code ticks} тиков.
+     */
+    public boolean isFormationStuck(boolean ally, VehicleType vehicleType, int tickIndex, int ticks) {
+        return tickIndex - latestMoveTickByFormation[getFormation(ally, vehicleType.ordinal())] > ticks;
+    }
+
+    /**
+     * @return Возвращает среднюю по технике формации скорость по оси абсцисс за тик между самым старым сохранённым
+     * накопленным смещением формации и текущим тиком (см. {@link #getSpeedX(long, int)}).
+     */
+    public double getFormationSpeedX(boolean ally, VehicleType vehicleType, int tickIndex) {
+        return getFormationSpeed(getFormation(ally, vehicleType.ordinal()), tickIndex, shiftXByFormationEntry);
+    }
+
+    /**
+     * @return Возвращает среднюю по технике формации скорость по оси ординат за тик
+     * (см. {@link #getFormationSpeedX(boolean, VehicleType, int)}).
+     */
+    public double getFormationSpeedY(boolean ally, VehicleType vehicleType, int tickIndex) {
+        return getFormationSpeed(getFormation(ally, vehicleType.ordinal()), tickIndex, shiftYByFormationEntry);
+    }
+
+    /**
+     * @return Возвращает направление движения формации в радианах или {@code NaN}, если формация не двигалась.
+     */
+    public double getFormationHeading(boolean ally, VehicleType vehicleType, int tickIndex) {
+        double speedX = getFormationSpeedX(ally, vehicleType, tickIndex);
+        double speedY = getFormationSpeedY(ally, vehicleType, tickIndex);
+        return speedX == 0.0D && speedY == 0.0D ? Double.NaN : StrictMath.atan2(speedY, speedX);
+    }
+
+    /**
+     * Добавляет смещение техники к накопленному смещению формации. Все смещения одного тика попадают в одну запись
+     * кольцевого буфера формации.
+     */
+    private void recordFormationShift(int formation, double shiftX, double shiftY, int tickIndex) {
+        shiftXByFormation[formation] += shiftX;
+        shiftYByFormation[formation] += shiftY;
+        latestMoveTickByFormation[formation] = Math.max(latestMoveTickByFormation[formation], tickIndex);
+
+        int base = formation * capacity;
+        int entryCount = entryCountByFormation[formation];
+        int slot = newestEntryByFormation[formation];
+
+        if (entryCount == 0 || tickByFormationEntry[base + slot] != tickIndex) {
+            slot = entryCount == 0 ? 0 : (slot + 1) % capacity;
+            newestEntryByFormation[formation] = slot;
+            entryCountByFormation[formation] = Math.min(entryCount + 1, capacity);
+            tickByFormationEntry[base + slot] = tickIndex;
+        }
+
+        shiftXByFormationEntry[base + slot] = shiftXByFormation[formation];
+        shiftYByFormationEntry[base + slot] = shiftYByFormation[formation];
+    }
+
+    private double getFormationSpeed(int formation, int tickIndex, double[] shiftByEntry) {
+        int entryCount = entryCountByFormation[formation];
+        int vehicleCount = vehicleCountByFormation[formation];
+        if (entryCount < 2 || vehicleCount == 0) {
+            return 0.0D;
+        }
+
+        int base = formation * capacity;
+        int newestEntry = base + newestEntryByFormation[formation];
+        int oldestEntry = base + (newestEntryByFormation[formation] - entryCount + 1 + capacity) % capacity;
+
+        int elapsedTicks = tickIndex - tickByFormationEntry[oldestEntry];
+        return elapsedTicks <= 0
+                ? 0.0D
+                : (shiftByEntry[newestEntry] - shiftByEntry[oldestEntry]) / elapsedTicks / vehicleCount;
+    }
+
+    private static int getFormation(boolean ally, int typeOrdinal) {
+        return ally ? typeOrdinal : TYPE_COUNT + typeOrdinal;
+    }
+
+    private double getSpeed(long vehicleId, int tickIndex, double[] coordinateByEntry) {
+        int vehicleIndex = (int) vehicleId;
+        if (vehicleIndex >= entryCountByVehicle.length) {
+            return 0.0D;
+        }
+
+        int entryCount = entryCountByVehicle[vehicleIndex];
+        if (entryCount < 2) {
+            return 0.0D;
+        }
+
+        int base = vehicleIndex * capacity;
+        int newestEntry = base + newestEntryByVehicle[vehicleIndex];
+        int oldestEntry = base + (newestEntryByVehicle[vehicleIndex] - entryCount + 1 + capacity) % capacity;
+
+        int elapsedTicks = tickIndex - tickByEntry[oldestEntry];
+        return elapsedTicks <= 0
+                ? 0.0D
+                : (coordinateByEntry[newestEntry] - coordinateByEntry[oldestEntry]) / elapsedTicks;
+    }
+
+    private void allocate(int vehicleCapacity) {
+        int entryCapacity = vehicleCapacity * capacity;
+
+        tickByEntry = tickByEntry == null ? new int[entryCapacity] : Arrays.copyOf(tickByEntry, entryCapacity);
+        xByEntry = xByEntry == null ? new double[entryCapacity] : Arrays.copyOf(xByEntry, entryCapacity);
+        yByEntry = yByEntry == null ? new double[entryCapacity] : Arrays.copyOf(yByEntry, entryCapacity);
+
+        newestEntryByVehicle = newestEntryByVehicle == null
+                ? new int[vehicleCapacity]
+                : Arrays.copyOf(newestEntryByVehicle, vehicleCapacity);
+        entryCountByVehicle = entryCountByVehicle == null
+                ? new int[vehicleCapacity]
+                : Arrays.copyOf(entryCountByVehicle, vehicleCapacity);
+        formationByVehicle = formationByVehicle == null
+                ? new byte[vehicleCapacity]
+                : Arrays.copyOf(formationByVehicle, vehicleCapacity);
+    }
+}
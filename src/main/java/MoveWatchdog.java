@@ -0,0 +1,138 @@
+import model.ActionType;
+import model.Game;
+import model.Move;
+import model.Player;
+import model.World;
+
+import java.io.Closeable;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Ограничение времени на ход стратегии.
+ * <p>
+ * Стратегия вызывается в отдельном рабочем потоке. Тики передаются ей строго по порядку (мир каждого тика содержит
+ * только изменения относительно предыдущего, поэтому пропускать тики нельзя), а поток игры ждёт результат не дольше
+ * заданного срока. Если стратегия не уложилась в срок, отправляется запасной ход: ход, который стратегия досчитала
+ * после срока в одном из предыдущих тиков и который ещё не был отправлен, либо {@code ActionType.NONE}. Опоздавший
+ * ход также отправляется в первом тике, в котором стратегия уложилась в срок, но не совершила действия; в остальных
+ * случаях он отбрасывается.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class MoveWatchdog implements Closeable {
+    private final Strategy strategy;
+    private final long deadlineNanos;
+    private final ExecutorService executor;
+    private final Deque<Future<Move>> lateMoves = new ArrayDeque<>();
+
+    private int missedDeadlineCount;
+
+    public MoveWatchdog(Strategy strategy, long deadlineNanos) {
+        this.strategy = strategy;
+        this.deadlineNanos = deadlineNanos;
+
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "strategy-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Передаёт тик стратегии и ждёт её ход не дольше срока.
+     *
+     * @return Возвращает ход, который следует отправить симулятору.
+     */
+    public Move move(Player player, World world, Game game) throws InterruptedIOException {
+        Future<Move> future = executor.submit(() -> {
+            Move move = new Move();
+            strategy.move(player, world, game, move);
+            return move;
+        });
+
+        try {
+            Move move = future.get(deadlineNanos, TimeUnit.NANOSECONDS);
+            Move lateMove = pollLateMove();
+            return lateMove != null && !hasAction(move) ? lateMove : move;
+        } catch (TimeoutException ignored) {
+            ++missedDeadlineCount;
+            lateMoves.addLast(future);
+
+            Move lateMove = pollLateMove();
+            if (lateMove != null) {
+                return lateMove;
+            }
+
+            Move move = new Move();
+            move.setAction(ActionType.NONE);
+            return move;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for strategy move.");
+        } catch (ExecutionException e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * @return Возвращает количество тиков, в которых стратегия не уложилась в срок.
+     */
+    public int getMissedDeadlineCount() {
+        return missedDeadlineCount;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Убирает из очереди все досчитанные опоздавшие ходы.
+     *
+     * @return Возвращает последний из них, совершающий действие, или {@code null}.
+     */
+    private Move pollLateMove() throws InterruptedIOException {
+        Move lateMove = null;
+
+        while (!lateMoves.isEmpty() && lateMoves.peekFirst().isDone()) {
+            try {
+                Move move = lateMoves.pollFirst().get();
+                if (hasAction(move)) {
+                    lateMove = move;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for strategy move.");
+            } catch (ExecutionException e) {
+                throw rethrow(e);
+            }
+        }
+
+        return lateMove;
+    }
+
+    private static boolean hasAction(Move move) {
+        return move.getAction() != null && move.getAction() != ActionType.NONE;
+    }
+
+    private static RuntimeException rethrow(ExecutionException e) {
+        Throwable cause = e.getCause();
+
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+
+        return new IllegalStateException("Strategy failed.", cause);
+    }
+}
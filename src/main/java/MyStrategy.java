@@ -1,11 +1,11 @@
 import model.*;
 
+import java.io.Closeable;
 import java.util.*;
 import java.util.function.Consumer;
-import java.util.stream.Stream;
 
 @SuppressWarnings({"UnsecureRandomNumberGeneration", "FieldCanBeLocal", "unused", "OverlyLongMethod"})
-public final class MyStrategy implements Strategy {
+public final class MyStrategy implements Strategy, Closeable {
     /**
      * Список целей для каждого типа техники, упорядоченных по убыванию урона по ним.
      */
@@ -33,17 +33,37 @@ public final class MyStrategy implements Strategy {
 
     private Random random;
 
-    private TerrainType[][] terrainTypeByCellXY;
-    private WeatherType[][] weatherTypeByCellXY;
+    private TerrainWeatherGrid terrainWeatherGrid;
 
     private Player me;
     private World world;
     private Game game;
     private Move move;
 
-    private final Map<Long, Vehicle> vehicleById = new HashMap<>();
-    private final Map<Long, Integer> updateTickByVehicleId = new HashMap<>();
-    private final Queue<Consumer<Move>> delayedMoves = new ArrayDeque<>();
+    private final VehicleTable vehicleTable = new VehicleTable();
+    private final MotionHistory motionHistory = new MotionHistory(16);
+    private final Deque<Consumer<Move>> delayedMoves = new ArrayDeque<>();
+
+    private VehicleTypeStats vehicleTypeStats;
+    private VisibilityGrid visibilityGrid;
+    private NuclearStrikeOptimizer nuclearStrikeOptimizer;
+    private NuclearStrikeEvasion nuclearStrikeEvasion;
+    private DistanceFieldCache distanceFieldCache;
+    private FacilityPlanner facilityPlanner;
+    private GroupManager groupManager;
+    private EnemyPredictor enemyPredictor;
+    private EnemyClusterer enemyClusterer;
+    private final CollisionPredictor collisionPredictor = new CollisionPredictor();
+    private final ParallelMoveEvaluator parallelMoveEvaluator = new ParallelMoveEvaluator(100.0D, 1.0D);
+    private VehicleSnapshot.Builder vehicleSnapshotBuilder;
+    private VehicleSnapshot vehicleSnapshot;
+    private BackgroundPlanner<TargetRefiner.Plan> backgroundPlanner;
+    private final IdleTaskScheduler idleTaskScheduler = new IdleTaskScheduler();
+
+    private NuclearStrikeOptimizer.Target nuclearStrikeTarget;
+    private int nuclearStrikeTargetTickIndex = -1;
+    private final SelectionTracker selectionTracker = new SelectionTracker();
+    private final BitSet formationVehicleIds = new BitSet();
 
     /**
      * Основной метод стратегии, осуществляющий управление армией. Вызывается каждый тик.
@@ -57,20 +77,38 @@ public final class MyStrategy implements Strategy {
     public void move(Player me, World world, Game game, Move move) {
         initializeStrategy(world, game);
         initializeTick(me, world, game, move);
+        evadeNuclearStrike();
 
         if (me.getRemainingActionCooldownTicks() > 0) {
+            idleTaskScheduler.runIdle(2_000_000L);
             return;
         }
 
+        // Отложенные действия, и прежде всего уклонение от ядерного удара противника, выполняются раньше нашего удара:
+        // иначе удар занял бы действие тика, и уклонение опоздало бы на тик.
         if (executeDelayedMove()) {
             return;
         }
 
+        if (me.getRemainingNuclearStrikeCooldownTicks() == 0 && requestNuclearStrike() && executeDelayedMove()) {
+            return;
+        }
+
         move();
 
         executeDelayedMove();
     }
 
+    /**
+     * Останавливает поток фонового планировщика. Вызывается по окончании игры, в том числе синтетической.
+     */
+    @Override
+    public void close() {
+        if (backgroundPlanner != null) {
+            backgroundPlanner.stop();
+        }
+    }
+
     /**
      * Инциализируем стратегию.
      * <p>
@@ -81,8 +119,21 @@ public final class MyStrategy implements Strategy {
         if (random == null) {
             random = new Random(game.getRandomSeed());
 
-            terrainTypeByCellXY = world.getTerrainByCellXY();
-            weatherTypeByCellXY = world.getWeatherByCellXY();
+            vehicleTypeStats = new VehicleTypeStats(game);
+            terrainWeatherGrid = new TerrainWeatherGrid(game, vehicleTypeStats, world);
+            visibilityGrid = new VisibilityGrid(terrainWeatherGrid, world, world.getMyPlayer().getId(), 8.0D);
+            nuclearStrikeOptimizer = new NuclearStrikeOptimizer(game, world);
+            nuclearStrikeEvasion = new NuclearStrikeEvasion(game);
+            distanceFieldCache = new DistanceFieldCache(game, terrainWeatherGrid, 1 << 18);
+            facilityPlanner = new FacilityPlanner(game, vehicleTypeStats, distanceFieldCache);
+            groupManager = new GroupManager(game);
+            enemyPredictor = new EnemyPredictor(terrainWeatherGrid, world);
+            enemyClusterer = new EnemyClusterer(world, 15.0D, 5);
+            vehicleSnapshotBuilder = new VehicleSnapshot.Builder(world.getMyPlayer().getId(), vehicleTypeStats);
+            backgroundPlanner = new BackgroundPlanner<>(new TargetRefiner(
+                    parallelMoveEvaluator, preferredTargetTypesByVehicleType.keySet().toArray(new VehicleType[0]),
+                    world.getWidth(), world.getHeight(), 64.0D, 4.0D
+            ));
         }
     }
 
@@ -97,44 +148,262 @@ public final class MyStrategy implements Strategy {
         this.move = move;
 
         for (Vehicle vehicle : world.getNewVehicles()) {
-            vehicleById.put(vehicle.getId(), vehicle);
-            updateTickByVehicleId.put(vehicle.getId(), world.getTickIndex());
+            vehicleTable.add(vehicle);
+            acceptVehicle(vehicle.getId());
         }
 
         for (VehicleUpdate vehicleUpdate : world.getVehicleUpdates()) {
             long vehicleId = vehicleUpdate.getId();
 
             if (vehicleUpdate.getDurability() == 0) {
-                vehicleById.remove(vehicleId);
-                updateTickByVehicleId.remove(vehicleId);
+                vehicleTable.remove(vehicleId);
+                motionHistory.remove(vehicleId);
+                visibilityGrid.remove(vehicleId);
+                groupManager.remove(vehicleId);
+                selectionTracker.remove(vehicleId);
+                enemyClusterer.remove(vehicleId);
+                vehicleSnapshotBuilder.remove(vehicleId);
             } else {
-                vehicleById.put(vehicleId, new Vehicle(vehicleById.get(vehicleId), vehicleUpdate));
-                updateTickByVehicleId.put(vehicleId, world.getTickIndex());
+                vehicleTable.update(vehicleUpdate);
+                acceptVehicle(vehicleId);
+            }
+        }
+
+        // Формации перенацеливаются раз в 180 тиков, и план нужен только к этому моменту. Поэтому снимки публикуются
+        // фоновому планировщику лишь в последние 20 тиков перед перенацеливанием: каждый новый снимок перезапускает
+        // уточнение плана, и в остальное время планировщик и общий пул потоков не конкурируют с потоком стратегии.
+        // В тике перенацеливания снимок нужен для запасной параллельной оценки перемещений.
+        int ticksUntilRetarget = (180 - world.getTickIndex() % 180) % 180;
+
+        if (ticksUntilRetarget <= 20) {
+            vehicleSnapshot = vehicleSnapshotBuilder.build(world.getTickIndex());
+
+            if (ticksUntilRetarget > 0) {
+                backgroundPlanner.submit(vehicleSnapshot);
             }
         }
+        distanceFieldCache.update(world.getFacilities());
+
+        // Пересчёт кластеров, прогрев полей расстояний до сооружений и поиск цели для ядерного удара выполняем заранее,
+        // в тиках, когда действие совершить нельзя. Если задача не успела выполниться, результат досчитывается при
+        // использовании.
+        idleTaskScheduler.submit("enemy-clusters", 200_000L, enemyClusterer::update);
+        idleTaskScheduler.submit("distance-fields", 1_000_000L, this::warmUpDistanceFields);
+
+        // Пока удар перезаряжается, цель не нужна: задача, поставленная до удара, снимается с очереди.
+        if (me.getRemainingNuclearStrikeCooldownTicks() == 0) {
+            idleTaskScheduler.submit("nuclear-strike-target", 1_000_000L, this::findNuclearStrikeTarget);
+        } else {
+            idleTaskScheduler.cancel("nuclear-strike-target");
+        }
+    }
+
+    /**
+     * Передаём состояние новой или изменившейся техники из таблицы техники во все компоненты, отслеживающие изменения.
+     */
+    private void acceptVehicle(long vehicleId) {
+        long playerId = vehicleTable.getPlayerId(vehicleId);
+        int typeOrdinal = vehicleTable.getTypeOrdinal(vehicleId);
+        double x = vehicleTable.getX(vehicleId);
+        double y = vehicleTable.getY(vehicleId);
+        int durability = vehicleTable.getDurability(vehicleId);
+
+        motionHistory.record(vehicleId, typeOrdinal, x, y, world.getTickIndex(), playerId == me.getId());
+        visibilityGrid.accept(
+                vehicleId, playerId, x, y, vehicleTable.getVisionRange(vehicleId), vehicleTable.isAerial(vehicleId)
+        );
+        groupManager.accept(
+                vehicleId, typeOrdinal, playerId == me.getId(), vehicleTable.getGroupMask(vehicleId, 0),
+                vehicleTable.getGroupMask(vehicleId, 1)
+        );
+        selectionTracker.accept(vehicleId, vehicleTable.isSelected(vehicleId));
+        vehicleSnapshotBuilder.accept(vehicleId, playerId, typeOrdinal, x, y, durability);
+
+        if (playerId != me.getId()) {
+            enemyClusterer.accept(vehicleId, typeOrdinal, x, y, durability);
+        }
     }
 
     /**
-     * Достаём отложенное действие из очереди и выполняем его.
+     * Достаём отложенное действие из очереди и выполняем его. Отложенное действие может ничего не сделать (например,
+     * выделение, которое уже совпадает с текущим), тогда выполняем следующее.
      *
      * @return Возвращает {@code true}, если и только если отложенное действие было найдено и выполнено.
      */
     private boolean executeDelayedMove() {
-        Consumer<Move> delayedMove = delayedMoves.poll();
-        if (delayedMove == null) {
+        Consumer<Move> delayedMove;
+
+        while ((delayedMove = delayedMoves.poll()) != null) {
+            delayedMove.accept(move);
+
+            if (move.getAction() != null) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Проверяем, не запросил ли противник ядерный удар по нашей технике. Действия уклонения вытесняют все остальные
+     * отложенные действия: те могли рассчитывать на текущее выделение, которое уклонение меняет, поэтому очередь
+     * очищается, а основная логика стратегии перепланирует приказы позже.
+     */
+    private void evadeNuclearStrike() {
+        Player opponent = world.getOpponentPlayer();
+
+        // Уклонение проверяет рассеивание на столкновения по текущему положению формаций, а не по положению в момент
+        // последнего перенацеливания.
+        if (opponent.getNextNuclearStrikeTickIndex() >= 0) {
+            collisionPredictor.update(me.getId(), vehicleTable, motionHistory, world.getTickIndex());
+        }
+
+        nuclearStrikeEvasion.update(opponent, world.getTickIndex(), vehicleTable, collisionPredictor);
+
+        List<Consumer<Move>> evasiveMoves = nuclearStrikeEvasion.pollEvasiveMoves();
+        if (!evasiveMoves.isEmpty()) {
+            delayedMoves.clear();
+            delayedMoves.addAll(evasiveMoves);
+        }
+
+        delayedMoves.addAll(nuclearStrikeEvasion.pollRegroupMoves());
+    }
+
+    /**
+     * Ищем выгодную цель для тактического ядерного удара и, если она найдена, добавляем удар в очередь отложенных
+     * действий. Удар запрашивается только при пустой очереди, поэтому не вклинивается в многошаговые
+     * последовательности действий (например, между выделением формации и приказом ей), а уклонение, сбрасывающее
+     * очередь, отменяет и его.
+     *
+     * @return Возвращает {@code true}, если и только если удар был добавлен в очередь.
+     */
+    private boolean requestNuclearStrike() {
+        if (!delayedMoves.isEmpty()) {
+            return false;
+        }
+
+        // Цель, найденная в предыдущем тике, ещё актуальна: техника за тик смещается незначительно.
+        if (nuclearStrikeTargetTickIndex < world.getTickIndex() - 1) {
+            findNuclearStrikeTarget();
+        }
+
+        NuclearStrikeOptimizer.Target target = nuclearStrikeTarget;
+        nuclearStrikeTarget = null;
+        nuclearStrikeTargetTickIndex = -1;
+
+        if (target == null || target.getScore() < 5.0D * game.getMaxTacticalNuclearStrikeDamage()) {
             return false;
         }
 
-        delayedMove.accept(move);
+        delayedMoves.add(move -> {
+            // Наводчик мог быть уничтожен, пока удар ждал в очереди.
+            if (vehicleTable.contains(target.getVehicleId())) {
+                move.setAction(ActionType.TACTICAL_NUCLEAR_STRIKE);
+                move.setVehicleId(target.getVehicleId());
+                move.setX(target.getX());
+                move.setY(target.getY());
+            }
+        });
         return true;
     }
 
+    /**
+     * Ищем лучшую цель для тактического ядерного удара по текущему состоянию техники.
+     */
+    private void findNuclearStrikeTarget() {
+        nuclearStrikeOptimizer.clear();
+
+        for (long vehicleId = vehicleTable.nextVehicleId(0L); vehicleId >= 0L;
+             vehicleId = vehicleTable.nextVehicleId(vehicleId + 1L)) {
+            nuclearStrikeOptimizer.add(
+                    vehicleTable.getX(vehicleId), vehicleTable.getY(vehicleId), vehicleTable.getDurability(vehicleId),
+                    motionHistory.getSpeedX(vehicleId, world.getTickIndex()),
+                    motionHistory.getSpeedY(vehicleId, world.getTickIndex()),
+                    vehicleTable.getPlayerId(vehicleId) == me.getId()
+            );
+        }
+
+        nuclearStrikeTarget = nuclearStrikeOptimizer.findTarget(
+                visibilityGrid, vehicleTable, motionHistory, world.getTickIndex(), me.getId(), 2.0D
+        );
+        nuclearStrikeTargetTickIndex = world.getTickIndex();
+    }
+
+    /**
+     * Заранее строим поля расстояний до всех сооружений, чтобы распределение формаций по сооружениям брало их из кэша.
+     */
+    private void warmUpDistanceFields() {
+        for (Facility facility : world.getFacilities()) {
+            distanceFieldCache.getField(facility, DistanceFieldCache.MovementClass.GROUND);
+        }
+    }
+
     /**
      * Основная логика нашей стратегии.
      */
     private void move() {
         // Каждые 180 тиков ...
         if (world.getTickIndex() % 180 == 0) {
+            // ... настраиваем производство на наших заводах и распределяем наземные формации по сооружениям ...
+            delayedMoves.addAll(facilityPlanner.scheduleProduction(
+                    me.getId(), world.getFacilities(), vehicleTable
+            ));
+
+            Map<VehicleType, Facility> facilityByVehicleType = facilityPlanner.assignFormations(
+                    me.getId(), world.getFacilities(), vehicleTable
+            );
+
+            collisionPredictor.update(me.getId(), vehicleTable, motionHistory, world.getTickIndex());
+
+            // ... прогнозируем центры кластеров противника на середину интервала до следующего перенацеливания ...
+            enemyClusterer.update();
+            enemyPredictor.update(me.getId(), vehicleTable, enemyClusterer, motionHistory, world.getTickIndex());
+
+            int enemyFormationCount = enemyPredictor.getFormationCount();
+            double[] enemyXByFormation = new double[enemyFormationCount];
+            double[] enemyYByFormation = new double[enemyFormationCount];
+            int[] enemyCountByFormation = new int[enemyFormationCount];
+
+            enemyPredictor.predict(90, enemyXByFormation, enemyYByFormation, enemyCountByFormation);
+
+            // ... и общий центр всех формаций противника или центр мира ...
+            double enemyX = 0.0D;
+            double enemyY = 0.0D;
+            int enemyCount = 0;
+
+            for (int formation = 0; formation < enemyFormationCount; ++formation) {
+                int count = enemyCountByFormation[formation];
+                if (count > 0) {
+                    enemyX += enemyXByFormation[formation] * count;
+                    enemyY += enemyYByFormation[formation] * count;
+                    enemyCount += count;
+                }
+            }
+
+            double defaultTargetX = enemyCount > 0 ? enemyX / enemyCount : world.getWidth() / 2.0D;
+            double defaultTargetY = enemyCount > 0 ? enemyY / enemyCount : world.getHeight() / 2.0D;
+
+            // ... забираем точки назначения, уточнённые фоновым планировщиком не более 10 тиков назад (ожидая не
+            // дольше 5 мс), а если плана нет, параллельно оцениваем перемещение каждой атакующей формации к каждому
+            // кластеру противника ...
+            TargetRefiner.Plan plan = backgroundPlanner.getPlan(
+                    world.getTickIndex() - 10, System.nanoTime() + 5_000_000L
+            );
+
+            List<ParallelMoveEvaluator.Candidate> candidates = new ArrayList<>();
+
+            for (VehicleType vehicleType : preferredTargetTypesByVehicleType.keySet()) {
+                for (int formation = 0; plan == null && formation < enemyFormationCount; ++formation) {
+                    if (enemyCountByFormation[formation] > 0) {
+                        candidates.add(new ParallelMoveEvaluator.Candidate(
+                                vehicleType, enemyXByFormation[formation], enemyYByFormation[formation]
+                        ));
+                    }
+                }
+            }
+
+            Map<VehicleType, Move> bestMoveByType = parallelMoveEvaluator.evaluate(vehicleSnapshot, candidates);
+
             // ... для каждого типа техники ...
             for (VehicleType vehicleType : VehicleType.values()) {
                 VehicleType[] targetTypes = preferredTargetTypesByVehicleType.get(vehicleType);
@@ -145,95 +414,84 @@ public final class MyStrategy implements Strategy {
                 }
 
                 // ... получаем центр формации ...
-                double x = streamVehicles(
-                        Ownership.ALLY, vehicleType
-                ).mapToDouble(Vehicle::getX).average().orElse(Double.NaN);
-
-                double y = streamVehicles(
-                        Ownership.ALLY, vehicleType
-                ).mapToDouble(Vehicle::getY).average().orElse(Double.NaN);
-
-                // ... получаем центр формации противника или центр мира ...
-                double targetX = Arrays.stream(targetTypes).map(
-                        targetType -> streamVehicles(
-                                Ownership.ENEMY, targetType
-                        ).mapToDouble(Vehicle::getX).average().orElse(Double.NaN)
-                ).filter(Double::isFinite).findFirst().orElseGet(
-                        () -> streamVehicles(
-                                Ownership.ENEMY
-                        ).mapToDouble(Vehicle::getX).average().orElse(world.getWidth() / 2.0D)
-                );
-
-                double targetY = Arrays.stream(targetTypes).map(
-                        targetType -> streamVehicles(
-                                Ownership.ENEMY, targetType
-                        ).mapToDouble(Vehicle::getY).average().orElse(Double.NaN)
-                ).filter(Double::isFinite).findFirst().orElseGet(
-                        () -> streamVehicles(
-                                Ownership.ENEMY
-                        ).mapToDouble(Vehicle::getY).average().orElse(world.getHeight() / 2.0D)
-                );
-
-                // .. и добавляем в очередь отложенные действия для выделения и перемещения техники.
+                double x = getAllyCenterX(vehicleType);
+                double y = getAllyCenterY(vehicleType);
+
+                // ... получаем центр назначенного сооружения, точку назначения из фонового плана, прогноз центра
+                // лучшего для атаки кластера противника или общий центр противника ...
+                Facility facility = facilityByVehicleType.get(vehicleType);
+                Move bestMove = bestMoveByType.get(vehicleType);
+
+                double targetX;
+                double targetY;
+
+                if (facility != null) {
+                    targetX = getCenterX(facility);
+                    targetY = getCenterY(facility);
+                } else if (plan != null && plan.hasTarget(vehicleType)) {
+                    targetX = plan.getTargetX(vehicleType);
+                    targetY = plan.getTargetY(vehicleType);
+                } else if (bestMove != null) {
+                    targetX = x + bestMove.getX();
+                    targetY = y + bestMove.getY();
+                } else {
+                    targetX = defaultTargetX;
+                    targetY = defaultTargetY;
+                }
+
+                // .. и добавляем в очередь отложенные действия для выделения и перемещения техники в обход других
+                // наших формаций. Если формация выделяется рамкой, вслед за приказом ей назначается группа.
                 if (!Double.isNaN(x) && !Double.isNaN(y)) {
-                    delayedMoves.add(move -> {
-                        move.setAction(ActionType.CLEAR_AND_SELECT);
-                        move.setRight(world.getWidth());
-                        move.setBottom(world.getHeight());
-                        move.setVehicleType(vehicleType);
-                    });
+                    double[] shift = getCollisionFreeShift(vehicleType, targetX - x, targetY - y);
+
+                    delayedMoves.add(move -> selectFormation(move, vehicleType));
 
                     delayedMoves.add(move -> {
                         move.setAction(ActionType.MOVE);
-                        move.setX(targetX - x);
-                        move.setY(targetY - y);
+                        move.setX(shift[0]);
+                        move.setY(shift[1]);
                     });
+
+                    delayedMoves.add(move -> groupManager.assignGroup(move, vehicleType));
                 }
             }
 
             // Также находим центр формации наших БРЭМ ...
-            double x = streamVehicles(
-                    Ownership.ALLY, VehicleType.ARRV
-            ).mapToDouble(Vehicle::getX).average().orElse(Double.NaN);
+            double x = getAllyCenterX(VehicleType.ARRV);
+            double y = getAllyCenterY(VehicleType.ARRV);
 
-            double y = streamVehicles(
-                    Ownership.ALLY, VehicleType.ARRV
-            ).mapToDouble(Vehicle::getY).average().orElse(Double.NaN);
+            // .. и отправляем их на захват назначенного сооружения или в центр мира.
+            Facility facility = facilityByVehicleType.get(VehicleType.ARRV);
+            double targetX = facility != null ? getCenterX(facility) : world.getWidth() / 2.0D;
+            double targetY = facility != null ? getCenterY(facility) : world.getHeight() / 2.0D;
 
-            // .. и отправляем их в центр мира.
             if (!Double.isNaN(x) && !Double.isNaN(y)) {
-                delayedMoves.add(move -> {
-                    move.setAction(ActionType.CLEAR_AND_SELECT);
-                    move.setRight(world.getWidth());
-                    move.setBottom(world.getHeight());
-                    move.setVehicleType(VehicleType.ARRV);
-                });
+                double[] shift = getCollisionFreeShift(VehicleType.ARRV, targetX - x, targetY - y);
+
+                delayedMoves.add(move -> selectFormation(move, VehicleType.ARRV));
 
                 delayedMoves.add(move -> {
                     move.setAction(ActionType.MOVE);
-                    move.setX(world.getWidth() / 2.0D - x);
-                    move.setY(world.getHeight() / 2.0D - y);
+                    move.setX(shift[0]);
+                    move.setY(shift[1]);
                 });
+
+                delayedMoves.add(move -> groupManager.assignGroup(move, VehicleType.ARRV));
             }
 
             return;
         }
 
         // Если ни один наш юнит не мог двигаться в течение 60 тиков ...
-        if (streamVehicles(Ownership.ALLY).allMatch(
-                vehicle -> world.getTickIndex() - updateTickByVehicleId.get(vehicle.getId()) > 60
-        )) {
+        if (motionHistory.isAllyArmyStuck(world.getTickIndex(), 60)) {
             // ... находим центр нашей формации ...
-            double x = streamVehicles(Ownership.ALLY).mapToDouble(Vehicle::getX).average().orElse(Double.NaN);
-            double y = streamVehicles(Ownership.ALLY).mapToDouble(Vehicle::getY).average().orElse(Double.NaN);
+            double x = getAllyCenterX(null);
+            double y = getAllyCenterY(null);
 
-            // ... и поворачиваем её на случайный угол.
+            // ... и поворачиваем её на случайный угол. Поворот всей армии не меняет взаимного расположения формаций,
+            // поэтому прогноз столкновений для него не нужен.
             if (!Double.isNaN(x) && !Double.isNaN(y)) {
-                delayedMoves.add(move -> {
-                    move.setAction(ActionType.CLEAR_AND_SELECT);
-                    move.setRight(world.getWidth());
-                    move.setBottom(world.getHeight());
-                });
+                delayedMoves.add(move -> selectFormation(move, null));
 
                 delayedMoves.add(move -> {
                     move.setAction(ActionType.ROTATE);
@@ -245,39 +503,99 @@ public final class MyStrategy implements Strategy {
         }
     }
 
-    private Stream<Vehicle> streamVehicles(Ownership ownership, VehicleType vehicleType) {
-        Stream<Vehicle> stream = vehicleById.values().stream();
-
-        switch (ownership) {
-            case ALLY:
-                stream = stream.filter(vehicle -> vehicle.getPlayerId() == me.getId());
-                break;
-            case ENEMY:
-                stream = stream.filter(vehicle -> vehicle.getPlayerId() != me.getId());
-                break;
-            default:
+    /**
+     * Выделяем всю нашу технику указанного типа (или всю нашу технику, если тип не указан): по группе, если в группу
+     * входит вся наша техника этого типа, иначе рамкой на весь мир с фильтром по типу. Если нужная техника уже
+     * выделена, действие не совершается.
+     */
+    private void selectFormation(Move move, VehicleType vehicleType) {
+        formationVehicleIds.clear();
+
+        for (long vehicleId = vehicleTable.nextVehicleId(0L); vehicleId >= 0L;
+             vehicleId = vehicleTable.nextVehicleId(vehicleId + 1L)) {
+            if (vehicleTable.getPlayerId(vehicleId) == me.getId()
+                    && (vehicleType == null || vehicleTable.getTypeOrdinal(vehicleId) == vehicleType.ordinal())) {
+                formationVehicleIds.set((int) vehicleId);
+            }
         }
 
-        if (vehicleType != null) {
-            stream = stream.filter(vehicle -> vehicle.getType() == vehicleType);
+        if (selectionTracker.isSelectedExactly(formationVehicleIds)) {
+            return;
+        }
+
+        int group = vehicleType == null ? 0 : groupManager.getGroup(vehicleType);
+        if (group > 0) {
+            GroupManager.select(move, group);
+            return;
+        }
+
+        move.setAction(ActionType.CLEAR_AND_SELECT);
+        move.setRight(world.getWidth());
+        move.setBottom(world.getHeight());
+        move.setVehicleType(vehicleType);
+    }
+
+    /**
+     * Если перемещение формации на вектор {@code (x, y)} приведёт к столкновению с другой нашей формацией до
+     * следующего перенацеливания, пробуем повернуть вектор на всё больший угол в обе стороны.
+     *
+     * @return Возвращает первый вектор перемещения без столкновения или исходный вектор, если такого нет.
+     */
+    private double[] getCollisionFreeShift(VehicleType vehicleType, double x, double y) {
+        for (int step = 0; step <= 3; ++step) {
+            for (int sign = 1; sign >= (step == 0 ? 1 : -1); sign -= 2) {
+                double angle = sign * step * StrictMath.PI / 6.0D;
+                double cos = StrictMath.cos(angle);
+                double sin = StrictMath.sin(angle);
+                double shiftX = x * cos - y * sin;
+                double shiftY = x * sin + y * cos;
+
+                if (collisionPredictor.predictMove(vehicleType, shiftX, shiftY, 180) == -1) {
+                    return new double[] {shiftX, shiftY};
+                }
+            }
         }
 
-        return stream;
+        return new double[] {x, y};
     }
 
-    private Stream<Vehicle> streamVehicles(Ownership ownership) {
-        return streamVehicles(ownership, null);
+    private double getCenterX(Facility facility) {
+        return facility.getLeft() + game.getFacilityWidth() / 2.0D;
     }
 
-    private Stream<Vehicle> streamVehicles() {
-        return streamVehicles(Ownership.ANY);
+    private double getCenterY(Facility facility) {
+        return facility.getTop() + game.getFacilityHeight() / 2.0D;
     }
 
-    private enum Ownership {
-        ANY,
+    /**
+     * @return Возвращает абсциссу центра нашей техники указанного типа (или всей нашей техники, если тип не указан)
+     * или {@code NaN}, если такой техники нет.
+     */
+    private double getAllyCenterX(VehicleType vehicleType) {
+        return getAllyCenter(vehicleType, true);
+    }
 
-        ALLY,
+    /**
+     * @return Возвращает ординату центра нашей техники указанного типа (или всей нашей техники, если тип не указан)
+     * или {@code NaN}, если такой техники нет.
+     */
+    private double getAllyCenterY(VehicleType vehicleType) {
+        return getAllyCenter(vehicleType, false);
+    }
+
+    private double getAllyCenter(VehicleType vehicleType, boolean abscissa) {
+        int count = 0;
+        double sum = 0.0D;
+
+        for (long vehicleId = vehicleTable.nextVehicleId(0L); vehicleId >= 0L;
+             vehicleId = vehicleTable.nextVehicleId(vehicleId + 1L)) {
+            if (vehicleTable.getPlayerId(vehicleId) == me.getId()
+                    && (vehicleType == null || vehicleTable.getTypeOrdinal(vehicleId) == vehicleType.ordinal())) {
+                ++count;
+                sum += abscissa ? vehicleTable.getX(vehicleId) : vehicleTable.getY(vehicleId);
+            }
+        }
 
-        ENEMY
+        return count == 0 ? Double.NaN : sum / count;
     }
 }
\ No newline at end of file
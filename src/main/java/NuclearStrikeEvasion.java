@@ -0,0 +1,229 @@
+import model.ActionType;
+import model.Game;
+import model.Move;
+import model.Player;
+import model.VehicleType;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Обнаружение тактических ядерных ударов противника и уклонение от них.
+ * <p>
+ * Удар обнаруживается в тот же тик, в который противник его запросил. Если в радиусе взрыва есть наша техника,
+ * формируются действия «выделить технику вокруг точки удара» и «масштабировать её от точки удара с множителем
+ * {@value #EVASION_FACTOR}». Эти действия должны выполняться раньше любых других отложенных действий. Если
+ * {@link CollisionPredictor} предсказывает, что рассеиваемая техника до взрыва врежется в другую нашу формацию,
+ * множитель уменьшается, но не ниже {@value #MIN_EVASION_FACTOR}: выход из радиуса взрыва важнее. Вслед за
+ * масштабированием рассеянная техника заносится в отдельную группу уклонения (последнюю из доступных).
+ * <p>
+ * После взрыва техника группы уклонения выделяется одним действием и собирается обратно к точке удара с обратным
+ * множителем. Рамка вокруг
+ * рассеянной техники для этого не подходит: она в несколько раз больше исходной и захватила бы соседние формации.
+ * Если масштабирование или назначение группы так и не было выполнено (очередь отложенных действий была сброшена или
+ * удар уже состоялся), сбор не запрашивается: иначе он стянул бы к точке удара нерассеянную технику.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class NuclearStrikeEvasion {
+    private static final double EVASION_FACTOR = 10.0D;
+    private static final double MIN_EVASION_FACTOR = 2.0D;
+
+    private final double strikeRadius;
+    private final int evasionGroup;
+
+    private int detectedStrikeTickIndex = -1;
+    private double strikeX;
+    private double strikeY;
+    private final BitSet threatenedVehicleIds = new BitSet();
+
+    private List<Consumer<Move>> evasiveMoves = Collections.emptyList();
+    private List<Consumer<Move>> regroupMoves = Collections.emptyList();
+
+    private double appliedEvasionFactor;
+    private boolean evasionGroupAssigned;
+
+    public NuclearStrikeEvasion(Game game) {
+        strikeRadius = game.getTacticalNuclearStrikeRadius();
+
+        // Группы с первой по количество типов техники заняты постоянными группами типов (см. GroupManager).
+        evasionGroup = game.getMaxUnitGroup() > VehicleType.values().length ? game.getMaxUnitGroup() : 0;
+    }
+
+    /**
+     * Должен вызываться каждый тик, в том числе тогда, когда стратегия не может совершить действие.
+     *
+     * @param opponent Игрок-противник.
+     * @param vehicleTable Вся известная техника в текущем тике.
+     * @param collisionPredictor Прогноз столкновений, актуализированный в текущем тике, если противник запросил
+     *                           удар.
+     */
+    public void update(Player opponent, int tickIndex, VehicleTable vehicleTable,
+                       CollisionPredictor collisionPredictor) {
+        int strikeTickIndex = opponent.getNextNuclearStrikeTickIndex();
+
+        if (strikeTickIndex >= 0 && strikeTickIndex != detectedStrikeTickIndex) {
+            detectedStrikeTickIndex = strikeTickIndex;
+            strikeX = opponent.getNextNuclearStrikeX();
+            strikeY = opponent.getNextNuclearStrikeY();
+            appliedEvasionFactor = 0.0D;
+            evasionGroupAssigned = false;
+
+            threatenedVehicleIds.clear();
+            for (long vehicleId = vehicleTable.nextVehicleId(0L); vehicleId >= 0L;
+                 vehicleId = vehicleTable.nextVehicleId(vehicleId + 1L)) {
+                double distance = StrictMath.hypot(
+                        vehicleTable.getX(vehicleId) - strikeX, vehicleTable.getY(vehicleId) - strikeY
+                );
+
+                if (vehicleTable.getPlayerId(vehicleId) != opponent.getId()
+                        && distance <= strikeRadius + vehicleTable.getRadius(vehicleId)) {
+                    threatenedVehicleIds.set((int) vehicleId);
+                }
+            }
+
+            if (!threatenedVehicleIds.isEmpty()) {
+                evasiveMoves = createEvasiveMoves(vehicleTable, collisionPredictor, strikeTickIndex - tickIndex);
+            }
+        } else if (strikeTickIndex < 0 && detectedStrikeTickIndex >= 0) {
+            // Удар нанесён или отменён: возвращаем уцелевшую технику в строй, если она действительно была рассеяна.
+            if (appliedEvasionFactor > 0.0D && evasionGroupAssigned) {
+                regroupMoves = createRegroupMoves();
+            }
+
+            threatenedVehicleIds.clear();
+            appliedEvasionFactor = 0.0D;
+            evasionGroupAssigned = false;
+            detectedStrikeTickIndex = -1;
+        }
+    }
+
+    /**
+     * @return Возвращает действия уклонения от только что обнаруженного удара. Эти действия должны вытеснить все
+     * остальные отложенные действия стратегии. Повторный вызов вернёт пустой список.
+     */
+    public List<Consumer<Move>> pollEvasiveMoves() {
+        List<Consumer<Move>> moves = evasiveMoves;
+        evasiveMoves = Collections.emptyList();
+        return moves;
+    }
+
+    /**
+     * @return Возвращает действия для сбора техники после взрыва. Повторный вызов вернёт пустой список.
+     */
+    public List<Consumer<Move>> pollRegroupMoves() {
+        List<Consumer<Move>> moves = regroupMoves;
+        regroupMoves = Collections.emptyList();
+        return moves;
+    }
+
+    /**
+     * Формирует действия «выделить рамкой технику в радиусе взрыва», «рассеять её от точки удара» и, если группа
+     * уклонения доступна, «расформировать группу уклонения и занести в неё выделенную технику». Действия,
+     * выполняемые после того, как удар состоялся или был заменён другим, ничего не делают.
+     *
+     * @param horizonTicks Количество тиков до взрыва.
+     */
+    private List<Consumer<Move>> createEvasiveMoves(VehicleTable vehicleTable, CollisionPredictor collisionPredictor,
+                                                    int horizonTicks) {
+        int strikeTickIndex = detectedStrikeTickIndex;
+
+        double left = Double.POSITIVE_INFINITY;
+        double top = Double.POSITIVE_INFINITY;
+        double right = Double.NEGATIVE_INFINITY;
+        double bottom = Double.NEGATIVE_INFINITY;
+
+        for (int allyId = threatenedVehicleIds.nextSetBit(0); allyId >= 0;
+             allyId = threatenedVehicleIds.nextSetBit(allyId + 1)) {
+            double x = vehicleTable.getX(allyId);
+            double y = vehicleTable.getY(allyId);
+            double radius = vehicleTable.getRadius(allyId);
+
+            left = Math.min(left, x - radius);
+            top = Math.min(top, y - radius);
+            right = Math.max(right, x + radius);
+            bottom = Math.max(bottom, y + radius);
+        }
+
+        double selectionLeft = left;
+        double selectionTop = top;
+        double selectionRight = right;
+        double selectionBottom = bottom;
+        double x = strikeX;
+        double y = strikeY;
+
+        double factor = EVASION_FACTOR;
+        while (factor > MIN_EVASION_FACTOR
+                && collisionPredictor.predictScale(left, top, right, bottom, x, y, factor, horizonTicks) >= 0) {
+            factor = Math.max(MIN_EVASION_FACTOR, 1.0D + (factor - 1.0D) / 2.0D);
+        }
+
+        double evasionFactor = factor;
+
+        List<Consumer<Move>> moves = new ArrayList<>(4);
+
+        moves.add(move -> {
+            if (detectedStrikeTickIndex == strikeTickIndex) {
+                move.setAction(ActionType.CLEAR_AND_SELECT);
+                move.setLeft(selectionLeft);
+                move.setTop(selectionTop);
+                move.setRight(selectionRight);
+                move.setBottom(selectionBottom);
+            }
+        });
+
+        moves.add(move -> {
+            if (detectedStrikeTickIndex == strikeTickIndex) {
+                move.setAction(ActionType.SCALE);
+                move.setX(x);
+                move.setY(y);
+                move.setFactor(evasionFactor);
+                appliedEvasionFactor = evasionFactor;
+            }
+        });
+
+        if (evasionGroup > 0) {
+            // Группа могла остаться от предыдущего уклонения. Расформирование не меняет выделение.
+            moves.add(move -> {
+                if (appliedEvasionFactor > 0.0D && detectedStrikeTickIndex == strikeTickIndex) {
+                    move.setAction(ActionType.DISBAND);
+                    move.setGroup(evasionGroup);
+                }
+            });
+
+            moves.add(move -> {
+                if (appliedEvasionFactor > 0.0D && detectedStrikeTickIndex == strikeTickIndex) {
+                    move.setAction(ActionType.ASSIGN);
+                    move.setGroup(evasionGroup);
+                    evasionGroupAssigned = true;
+                }
+            });
+        }
+
+        return moves;
+    }
+
+    /**
+     * Формирует действия «выделить группу уклонения» и «собрать её к точке удара».
+     */
+    private List<Consumer<Move>> createRegroupMoves() {
+        double x = strikeX;
+        double y = strikeY;
+        double factor = 1.0D / appliedEvasionFactor;
+
+        List<Consumer<Move>> moves = new ArrayList<>(2);
+
+        moves.add(move -> GroupManager.select(move, evasionGroup));
+
+        moves.add(move -> {
+            move.setAction(ActionType.SCALE);
+            move.setX(x);
+            move.setY(y);
+            move.setFactor(factor);
+        });
+
+        return moves;
+    }
+}
@@ -0,0 +1,325 @@
+import model.Game;
+import model.World;
+
+import java.util.Arrays;
+
+/**
+ * Подбор точки тактического ядерного удара.
+ * <p>
+ * Позиции техники экстраполируются на {@code game.tacticalNuclearStrikeDelay} тиков вперёд и агрегируются в сетку
+ * плотности с шагом в четверть радиуса взрыва: для каждой клетки хранятся количество техники, сумма координат и
+ * суммарная прочность отдельно для своих и для чужих. Ожидаемый урон в точке-кандидате считается как сумма ядра
+ * {@code maxDamage * (1 - d / radius)} по центрам масс клеток в радиусе взрыва, ограниченная средней прочностью
+ * техники в клетке. Благодаря этому оценка одного кандидата стоит несколько десятков операций, а кандидаты без
+ * техники противника в радиусе отсекаются за O(1) по таблице префиксных сумм.
+ * <p>
+ * Кандидатами служат центры клеток {@link VisibilityGrid}, видимых нашей техникой.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class NuclearStrikeOptimizer {
+    private final double strikeRadius;
+    private final double maxDamage;
+    private final int strikeDelay;
+
+    private final double worldWidth;
+    private final double worldHeight;
+
+    private final double cellSize;
+    private final int columnCount;
+    private final int rowCount;
+
+    private final Density ally;
+    private final Density enemy;
+
+    /**
+     * Префиксные суммы количества техники противника: элемент {@code (x + 1) * (rowCount + 1) + (y + 1)} равен
+     * количеству техники в клетках {@code [0, x] × [0, y]}.
+     */
+    private final int[] enemyCountPrefixSums;
+
+    private double[] scoreByCandidate = new double[0];
+    private int[] candidates = new int[0];
+
+    public NuclearStrikeOptimizer(Game game, World world) {
+        strikeRadius = game.getTacticalNuclearStrikeRadius();
+        maxDamage = game.getMaxTacticalNuclearStrikeDamage();
+        strikeDelay = game.getTacticalNuclearStrikeDelay();
+
+        worldWidth = world.getWidth();
+        worldHeight = world.getHeight();
+
+        cellSize = strikeRadius / 4.0D;
+        columnCount = (int) StrictMath.ceil(worldWidth / cellSize);
+        rowCount = (int) StrictMath.ceil(worldHeight / cellSize);
+
+        ally = new Density(columnCount * rowCount);
+        enemy = new Density(columnCount * rowCount);
+        enemyCountPrefixSums = new int[(columnCount + 1) * (rowCount + 1)];
+    }
+
+    /**
+     * Очищает сетку плотности перед добавлением техники текущего тика.
+     */
+    public void clear() {
+        ally.clear();
+        enemy.clear();
+    }
+
+    /**
+     * Добавляет технику в сетку плотности в позиции, ожидаемой к моменту взрыва.
+     *
+     * @param speedX Оценка скорости техники по оси абсцисс за тик.
+     * @param speedY Оценка скорости техники по оси ординат за тик.
+     */
+    public void add(double vehicleX, double vehicleY, int durability, double speedX, double speedY, boolean isAlly) {
+        double x = Math.max(0.0D, Math.min(worldWidth - 1.0E-6D, vehicleX + speedX * strikeDelay));
+        double y = Math.max(0.0D, Math.min(worldHeight - 1.0E-6D, vehicleY + speedY * strikeDelay));
+
+        int cell = (int) (x / cellSize) * rowCount + (int) (y / cellSize);
+        (isAlly ? ally : enemy).add(cell, x, y, durability);
+    }
+
+    /**
+     * Находит точку удара с максимальной разностью ожидаемого урона по противнику и взвешенного урона по своим.
+     *
+     * @param visibilityGrid     Сетка видимости, клетки которой служат кандидатами.
+     * @param vehicleTable       Таблица техники, наша техника из которой может навести удар.
+     * @param motionHistory      История перемещений, по которой позиции наводчиков экстраполируются на момент взрыва.
+     * @param friendlyFireWeight Вес урона по своей технике.
+     * @return Возвращает лучшую цель или {@code null}, если ни одна цель не даёт положительной оценки.
+     */
+    public Target findTarget(VisibilityGrid visibilityGrid, VehicleTable vehicleTable, MotionHistory motionHistory,
+                             int tickIndex, long myPlayerId, double friendlyFireWeight) {
+        buildEnemyCountPrefixSums();
+
+        int candidateCount = visibilityGrid.getColumnCount() * visibilityGrid.getRowCount();
+        if (candidates.length < candidateCount) {
+            scoreByCandidate = new double[candidateCount];
+            candidates = new int[candidateCount];
+        }
+
+        double[] scores = scoreByCandidate;
+        int evaluatedCount = 0;
+
+        for (int candidate = visibilityGrid.getSeenByAlly().nextSetBit(0); candidate >= 0;
+             candidate = visibilityGrid.getSeenByAlly().nextSetBit(candidate + 1)) {
+            double x = visibilityGrid.getCellCenterX(candidate);
+            double y = visibilityGrid.getCellCenterY(candidate);
+
+            if (countEnemiesAround(x, y) == 0) {
+                continue;
+            }
+
+            double score = getExpectedDamage(enemy, x, y) - friendlyFireWeight * getExpectedDamage(ally, x, y);
+            if (score > 0.0D) {
+                scores[candidate] = score;
+                candidates[evaluatedCount++] = candidate;
+            }
+        }
+
+        // Кандидатов с положительной оценкой обычно немного, поэтому наводчика ищем от лучшего к худшему.
+        while (evaluatedCount > 0) {
+            int bestIndex = 0;
+            for (int i = 1; i < evaluatedCount; ++i) {
+                if (scores[candidates[i]] > scores[candidates[bestIndex]]) {
+                    bestIndex = i;
+                }
+            }
+
+            int candidate = candidates[bestIndex];
+            candidates[bestIndex] = candidates[--evaluatedCount];
+
+            double x = visibilityGrid.getCellCenterX(candidate);
+            double y = visibilityGrid.getCellCenterY(candidate);
+            long spotterId = findSpotter(visibilityGrid, vehicleTable, motionHistory, tickIndex, myPlayerId, x, y);
+
+            if (spotterId >= 0L) {
+                return new Target(spotterId, x, y, scores[candidate]);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Выбирает наводчика с наибольшим запасом радиуса обзора до точки удара, по возможности вне радиуса взрыва.
+     * <p>
+     * Наводчик должен видеть точку удара до самого взрыва, а его формация продолжает двигаться. Поэтому запас
+     * считается и в текущей позиции, и в позиции, экстраполированной на момент взрыва, и берётся меньший из них
+     * (расстояние до точки при равномерном движении максимально в одном из концов отрезка).
+     *
+     * @return Возвращает идентификатор наводчика или {@code -1}, если никто из нашей техники не видит точку удара.
+     */
+    private long findSpotter(VisibilityGrid visibilityGrid, VehicleTable vehicleTable, MotionHistory motionHistory,
+                             int tickIndex, long myPlayerId, double x, double y) {
+        long bestSpotterId = -1L;
+        double bestMargin = 0.0D;
+
+        for (long spotterId = vehicleTable.nextVehicleId(0L); spotterId >= 0L;
+             spotterId = vehicleTable.nextVehicleId(spotterId + 1L)) {
+            if (vehicleTable.getPlayerId(spotterId) != myPlayerId) {
+                continue;
+            }
+
+            double spotterX = vehicleTable.getX(spotterId);
+            double spotterY = vehicleTable.getY(spotterId);
+            double futureX = Math.max(0.0D, Math.min(
+                    worldWidth - 1.0E-6D, spotterX + motionHistory.getSpeedX(spotterId, tickIndex) * strikeDelay
+            ));
+            double futureY = Math.max(0.0D, Math.min(
+                    worldHeight - 1.0E-6D, spotterY + motionHistory.getSpeedY(spotterId, tickIndex) * strikeDelay
+            ));
+
+            double margin = Math.min(
+                    getVisionMargin(visibilityGrid, vehicleTable, spotterId, spotterX, spotterY, x, y),
+                    getVisionMargin(visibilityGrid, vehicleTable, spotterId, futureX, futureY, x, y)
+            );
+
+            if (margin <= 0.0D) {
+                continue;
+            }
+
+            if (StrictMath.hypot(futureX - x, futureY - y) < strikeRadius) {
+                margin -= strikeRadius;
+            }
+
+            if (bestSpotterId < 0L || margin > bestMargin) {
+                bestSpotterId = spotterId;
+                bestMargin = margin;
+            }
+        }
+
+        return bestSpotterId;
+    }
+
+    /**
+     * @return Возвращает разность радиуса обзора наводчика, находящегося в точке ({@code spotterX}, {@code spotterY}),
+     * и расстояния от него до точки удара.
+     */
+    private static double getVisionMargin(VisibilityGrid visibilityGrid, VehicleTable vehicleTable, long spotterId,
+                                          double spotterX, double spotterY, double x, double y) {
+        return visibilityGrid.getEffectiveVisionRange(
+                spotterX, spotterY, vehicleTable.getVisionRange(spotterId), vehicleTable.isAerial(spotterId)
+        ) - StrictMath.hypot(spotterX - x, spotterY - y);
+    }
+
+    private double getExpectedDamage(Density density, double x, double y) {
+        int left = Math.max(0, (int) ((x - strikeRadius) / cellSize));
+        int top = Math.max(0, (int) ((y - strikeRadius) / cellSize));
+        int right = Math.min(columnCount - 1, (int) ((x + strikeRadius) / cellSize));
+        int bottom = Math.min(rowCount - 1, (int) ((y + strikeRadius) / cellSize));
+
+        double expectedDamage = 0.0D;
+
+        for (int cellX = left; cellX <= right; ++cellX) {
+            for (int cellY = top; cellY <= bottom; ++cellY) {
+                int cell = cellX * rowCount + cellY;
+                int count = density.countByCell[cell];
+                if (count == 0) {
+                    continue;
+                }
+
+                double dx = density.sumXByCell[cell] / count - x;
+                double dy = density.sumYByCell[cell] / count - y;
+                double distance = StrictMath.sqrt(dx * dx + dy * dy);
+
+                if (distance < strikeRadius) {
+                    double damage = maxDamage * (1.0D - distance / strikeRadius);
+                    expectedDamage += count * Math.min(damage, density.sumDurabilityByCell[cell] / count);
+                }
+            }
+        }
+
+        return expectedDamage;
+    }
+
+    private int countEnemiesAround(double x, double y) {
+        int left = Math.max(0, (int) ((x - strikeRadius) / cellSize));
+        int top = Math.max(0, (int) ((y - strikeRadius) / cellSize));
+        int right = Math.min(columnCount - 1, (int) ((x + strikeRadius) / cellSize));
+        int bottom = Math.min(rowCount - 1, (int) ((y + strikeRadius) / cellSize));
+
+        int stride = rowCount + 1;
+        return enemyCountPrefixSums[(right + 1) * stride + bottom + 1]
+                - enemyCountPrefixSums[left * stride + bottom + 1]
+                - enemyCountPrefixSums[(right + 1) * stride + top]
+                + enemyCountPrefixSums[left * stride + top];
+    }
+
+    private void buildEnemyCountPrefixSums() {
+        int stride = rowCount + 1;
+
+        for (int x = 0; x < columnCount; ++x) {
+            for (int y = 0; y < rowCount; ++y) {
+                enemyCountPrefixSums[(x + 1) * stride + y + 1] = enemy.countByCell[x * rowCount + y]
+                        + enemyCountPrefixSums[x * stride + y + 1]
+                        + enemyCountPrefixSums[(x + 1) * stride + y]
+                        - enemyCountPrefixSums[x * stride + y];
+            }
+        }
+    }
+
+    private static final class Density {
+        private final int[] countByCell;
+        private final double[] sumXByCell;
+        private final double[] sumYByCell;
+        private final double[] sumDurabilityByCell;
+
+        private Density(int cellCount) {
+            countByCell = new int[cellCount];
+            sumXByCell = new double[cellCount];
+            sumYByCell = new double[cellCount];
+            sumDurabilityByCell = new double[cellCount];
+        }
+
+        private void add(int cell, double x, double y, int durability) {
+            ++countByCell[cell];
+            sumXByCell[cell] += x;
+            sumYByCell[cell] += y;
+            sumDurabilityByCell[cell] += durability;
+        }
+
+        private void clear() {
+            Arrays.fill(countByCell, 0);
+            Arrays.fill(sumXByCell, 0.0D);
+            Arrays.fill(sumYByCell, 0.0D);
+            Arrays.fill(sumDurabilityByCell, 0.0D);
+        }
+    }
+
+    public static final class Target {
+        private final long vehicleId;
+        private final double x;
+        private final double y;
+        private final double score;
+
+        public Target(long vehicleId, double x, double y, double score) {
+            this.vehicleId = vehicleId;
+            this.x = x;
+            this.y = y;
+            this.score = score;
+        }
+
+        /**
+         * @return Возвращает идентификатор техники-наводчика.
+         */
+        public long getVehicleId() {
+            return vehicleId;
+        }
+
+        public double getX() {
+            return x;
+        }
+
+        public double getY() {
+            return y;
+        }
+
+        /**
+         * @return Возвращает ожидаемый урон по противнику за вычетом взвешенного урона по своей технике.
+         */
+        public double getScore() {
+            return score;
+        }
+    }
+}
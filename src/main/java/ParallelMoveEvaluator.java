@@ -0,0 +1,212 @@
+import model.ActionType;
+import model.Move;
+import model.VehicleType;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Параллельная оценка вариантов приказов.
+ * <p>
+ * Каждый вариант --- перемещение одной нашей формации (всей техники одного типа) в заданную точку. Вариант
+ * оценивается ожидаемым обменом уроном с техникой противника в радиусе {@code engagementRange} от точки назначения за
+ * вычетом штрафа за длину пути. Варианты оцениваются в общем пуле {@link ForkJoinPool#commonPool()}, поэтому
+ * оценщик не владеет потоками и не требует закрытия; все потоки читают один неизменяемый {@link VehicleSnapshot} и
+ * пишут оценки в непересекающиеся участки общего массива, поэтому синхронизация не требуется.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class ParallelMoveEvaluator {
+    private static final int TYPE_COUNT = VehicleType.values().length;
+    private static final int CANDIDATES_PER_TASK = 4;
+
+    private final double squaredEngagementRange;
+    private final double distanceWeight;
+
+    /**
+     * @param engagementRange Радиус вокруг точки назначения, в котором учитывается техника противника.
+     * @param distanceWeight  Штраф за единицу длины пути формации.
+     */
+    public ParallelMoveEvaluator(double engagementRange, double distanceWeight) {
+        squaredEngagementRange = engagementRange * engagementRange;
+        this.distanceWeight = distanceWeight;
+    }
+
+    /**
+     * @return Возвращает для каждой нашей формации, упомянутой в вариантах, действие {@code ActionType.MOVE} с
+     * наилучшей оценкой. Перед выполнением действия формация должна быть выделена.
+     */
+    public Map<VehicleType, Move> evaluate(VehicleSnapshot snapshot, List<Candidate> candidates) {
+        double[] xByType = new double[TYPE_COUNT];
+        double[] yByType = new double[TYPE_COUNT];
+        int[] countByType = new int[TYPE_COUNT];
+        computeFormationCenters(snapshot, xByType, yByType, countByType);
+
+        double[] scores = score(snapshot, candidates, xByType, yByType, countByType);
+
+        Map<VehicleType, Move> bestMoveByType = new EnumMap<>(VehicleType.class);
+        double[] bestScoreByType = new double[TYPE_COUNT];
+
+        for (int i = 0; i < scores.length; ++i) {
+            Candidate candidate = candidates.get(i);
+            VehicleType vehicleType = candidate.getVehicleType();
+            int type = vehicleType.ordinal();
+
+            if (countByType[type] == 0
+                    || bestMoveByType.containsKey(vehicleType) && scores[i] <= bestScoreByType[type]) {
+                continue;
+            }
+
+            Move move = new Move();
+            move.setAction(ActionType.MOVE);
+            move.setX(candidate.getX() - xByType[type]);
+            move.setY(candidate.getY() - yByType[type]);
+
+            bestMoveByType.put(vehicleType, move);
+            bestScoreByType[type] = scores[i];
+        }
+
+        return bestMoveByType;
+    }
+
+    /**
+     * @return Возвращает оценки вариантов в порядке их следования. Варианты для отсутствующих формаций получают оценку
+     * {@code -inf}.
+     */
+    public double[] score(VehicleSnapshot snapshot, List<Candidate> candidates) {
+        double[] xByType = new double[TYPE_COUNT];
+        double[] yByType = new double[TYPE_COUNT];
+        int[] countByType = new int[TYPE_COUNT];
+        computeFormationCenters(snapshot, xByType, yByType, countByType);
+
+        return score(snapshot, candidates, xByType, yByType, countByType);
+    }
+
+    private double[] score(VehicleSnapshot snapshot, List<Candidate> candidates, double[] xByType, double[] yByType,
+                           int[] countByType) {
+        double[] scores = new double[candidates.size()];
+        ForkJoinPool.commonPool().invoke(
+                new ScoreTask(snapshot, candidates, xByType, yByType, countByType, scores, 0, scores.length)
+        );
+        return scores;
+    }
+
+    private static void computeFormationCenters(VehicleSnapshot snapshot, double[] xByType, double[] yByType,
+                                                int[] countByType) {
+        for (int index = 0; index < snapshot.getIndexCount(); ++index) {
+            if (snapshot.isPresent(index) && snapshot.isAlly(index)) {
+                int type = snapshot.getTypeOrdinal(index);
+                xByType[type] += snapshot.getX(index);
+                yByType[type] += snapshot.getY(index);
+                ++countByType[type];
+            }
+        }
+
+        for (int type = 0; type < TYPE_COUNT; ++type) {
+            if (countByType[type] > 0) {
+                xByType[type] /= countByType[type];
+                yByType[type] /= countByType[type];
+            }
+        }
+    }
+
+    private double score(VehicleSnapshot snapshot, Candidate candidate, double[] xByType, double[] yByType,
+                         int[] countByType) {
+        int type = candidate.getVehicleType().ordinal();
+        if (countByType[type] == 0) {
+            return Double.NEGATIVE_INFINITY;
+        }
+
+        double x = candidate.getX();
+        double y = candidate.getY();
+        double score = -distanceWeight * StrictMath.hypot(x - xByType[type], y - yByType[type]);
+
+        for (int index = 0; index < snapshot.getIndexCount(); ++index) {
+            if (!snapshot.isPresent(index) || snapshot.isAlly(index)) {
+                continue;
+            }
+
+            double dx = snapshot.getX(index) - x;
+            double dy = snapshot.getY(index) - y;
+            if (dx * dx + dy * dy > squaredEngagementRange) {
+                continue;
+            }
+
+            int enemyType = snapshot.getTypeOrdinal(index);
+            score += Math.min(snapshot.getDurability(index), snapshot.getDamage(type, enemyType));
+            score -= snapshot.getDamage(enemyType, type);
+        }
+
+        return score;
+    }
+
+    /**
+     * Вариант приказа: перемещение нашей формации указанного типа в точку {@code (x, y)}.
+     */
+    public static final class Candidate {
+        private final VehicleType vehicleType;
+        private final double x;
+        private final double y;
+
+        public Candidate(VehicleType vehicleType, double x, double y) {
+            this.vehicleType = vehicleType;
+            this.x = x;
+            this.y = y;
+        }
+
+        public VehicleType getVehicleType() {
+            return vehicleType;
+        }
+
+        public double getX() {
+            return x;
+        }
+
+        public double getY() {
+            return y;
+        }
+    }
+
+    private final class ScoreTask extends RecursiveAction {
+        private static final long serialVersionUID = -4019733871432505168L;
+
+        private final VehicleSnapshot snapshot;
+        private final List<Candidate> candidates;
+        private final double[] xByType;
+        private final double[] yByType;
+        private final int[] countByType;
+        private final double[] scores;
+        private final int from;
+        private final int to;
+
+        private ScoreTask(VehicleSnapshot snapshot, List<Candidate> candidates, double[] xByType, double[] yByType,
+                          int[] countByType, double[] scores, int from, int to) {
+            this.snapshot = snapshot;
+            this.candidates = candidates;
+            this.xByType = xByType;
+            this.yByType = yByType;
+            this.countByType = countByType;
+            this.scores = scores;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CANDIDATES_PER_TASK) {
+                for (int i = from; i < to; ++i) {
+                    scores[i] = score(snapshot, candidates.get(i), xByType, yByType, countByType);
+                }
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(
+                    new ScoreTask(snapshot, candidates, xByType, yByType, countByType, scores, from, middle),
+                    new ScoreTask(snapshot, candidates, xByType, yByType, countByType, scores, middle, to)
+            );
+        }
+    }
+}
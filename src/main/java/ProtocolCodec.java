@@ -0,0 +1,305 @@
+import model.ActionType;
+import model.Facility;
+import model.FacilityType;
+import model.Game;
+import model.Move;
+import model.Player;
+import model.Vehicle;
+import model.VehicleType;
+import model.VehicleUpdate;
+
+/**
+ * Кодек сообщений протокола: чтение и запись полей моделей по абсолютным смещениям в буфере.
+ * <p>
+ * Сгенерирован {@link ProtocolCodecGenerator} по схеме {@code protocol.schema}. Не редактировать вручную.
+ */
+@SuppressWarnings({"WeakerAccess", "OverlyLongMethod"})
+public final class ProtocolCodec {
+    public static final int GAME_SIZE = 565;
+    public static final int PLAYER_SIZE = 50;
+    public static final int VEHICLE_SIZE = 131;
+    public static final int VEHICLE_UPDATE_SIZE = 33;
+    public static final int FACILITY_SIZE = 46;
+    public static final int MOVE_SIZE = 102;
+
+    private static final FacilityType[] FACILITY_TYPES = FacilityType.values();
+    private static final VehicleType[] VEHICLE_TYPES = VehicleType.values();
+
+    private ProtocolCodec() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Декодирует {@code Game}, начиная с байта {@code offset}.
+     */
+    public static Game decodeGame(byte[] buffer, int offset) {
+        return new Game(
+                getLong(buffer, offset), // randomSeed
+                getInt(buffer, offset + 8), // tickCount
+                getDouble(buffer, offset + 12), // worldWidth
+                getDouble(buffer, offset + 20), // worldHeight
+                getBoolean(buffer, offset + 28), // fogOfWarEnabled
+                getInt(buffer, offset + 29), // victoryScore
+                getInt(buffer, offset + 33), // facilityCaptureScore
+                getInt(buffer, offset + 37), // vehicleEliminationScore
+                getInt(buffer, offset + 41), // actionDetectionInterval
+                getInt(buffer, offset + 45), // baseActionCount
+                getInt(buffer, offset + 49), // additionalActionCountPerControlCenter
+                getInt(buffer, offset + 53), // maxUnitGroup
+                getInt(buffer, offset + 57), // terrainWeatherMapColumnCount
+                getInt(buffer, offset + 61), // terrainWeatherMapRowCount
+                getDouble(buffer, offset + 65), // plainTerrainVisionFactor
+                getDouble(buffer, offset + 73), // plainTerrainStealthFactor
+                getDouble(buffer, offset + 81), // plainTerrainSpeedFactor
+                getDouble(buffer, offset + 89), // swampTerrainVisionFactor
+                getDouble(buffer, offset + 97), // swampTerrainStealthFactor
+                getDouble(buffer, offset + 105), // swampTerrainSpeedFactor
+                getDouble(buffer, offset + 113), // forestTerrainVisionFactor
+                getDouble(buffer, offset + 121), // forestTerrainStealthFactor
+                getDouble(buffer, offset + 129), // forestTerrainSpeedFactor
+                getDouble(buffer, offset + 137), // clearWeatherVisionFactor
+                getDouble(buffer, offset + 145), // clearWeatherStealthFactor
+                getDouble(buffer, offset + 153), // clearWeatherSpeedFactor
+                getDouble(buffer, offset + 161), // cloudWeatherVisionFactor
+                getDouble(buffer, offset + 169), // cloudWeatherStealthFactor
+                getDouble(buffer, offset + 177), // cloudWeatherSpeedFactor
+                getDouble(buffer, offset + 185), // rainWeatherVisionFactor
+                getDouble(buffer, offset + 193), // rainWeatherStealthFactor
+                getDouble(buffer, offset + 201), // rainWeatherSpeedFactor
+                getDouble(buffer, offset + 209), // vehicleRadius
+                getInt(buffer, offset + 217), // tankDurability
+                getDouble(buffer, offset + 221), // tankSpeed
+                getDouble(buffer, offset + 229), // tankVisionRange
+                getDouble(buffer, offset + 237), // tankGroundAttackRange
+                getDouble(buffer, offset + 245), // tankAerialAttackRange
+                getInt(buffer, offset + 253), // tankGroundDamage
+                getInt(buffer, offset + 257), // tankAerialDamage
+                getInt(buffer, offset + 261), // tankGroundDefence
+                getInt(buffer, offset + 265), // tankAerialDefence
+                getInt(buffer, offset + 269), // tankAttackCooldownTicks
+                getInt(buffer, offset + 273), // tankProductionCost
+                getInt(buffer, offset + 277), // ifvDurability
+                getDouble(buffer, offset + 281), // ifvSpeed
+                getDouble(buffer, offset + 289), // ifvVisionRange
+                getDouble(buffer, offset + 297), // ifvGroundAttackRange
+                getDouble(buffer, offset + 305), // ifvAerialAttackRange
+                getInt(buffer, offset + 313), // ifvGroundDamage
+                getInt(buffer, offset + 317), // ifvAerialDamage
+                getInt(buffer, offset + 321), // ifvGroundDefence
+                getInt(buffer, offset + 325), // ifvAerialDefence
+                getInt(buffer, offset + 329), // ifvAttackCooldownTicks
+                getInt(buffer, offset + 333), // ifvProductionCost
+                getInt(buffer, offset + 337), // arrvDurability
+                getDouble(buffer, offset + 341), // arrvSpeed
+                getDouble(buffer, offset + 349), // arrvVisionRange
+                getInt(buffer, offset + 357), // arrvGroundDefence
+                getInt(buffer, offset + 361), // arrvAerialDefence
+                getInt(buffer, offset + 365), // arrvProductionCost
+                getDouble(buffer, offset + 369), // arrvRepairRange
+                getDouble(buffer, offset + 377), // arrvRepairSpeed
+                getInt(buffer, offset + 385), // helicopterDurability
+                getDouble(buffer, offset + 389), // helicopterSpeed
+                getDouble(buffer, offset + 397), // helicopterVisionRange
+                getDouble(buffer, offset + 405), // helicopterGroundAttackRange
+                getDouble(buffer, offset + 413), // helicopterAerialAttackRange
+                getInt(buffer, offset + 421), // helicopterGroundDamage
+                getInt(buffer, offset + 425), // helicopterAerialDamage
+                getInt(buffer, offset + 429), // helicopterGroundDefence
+                getInt(buffer, offset + 433), // helicopterAerialDefence
+                getInt(buffer, offset + 437), // helicopterAttackCooldownTicks
+                getInt(buffer, offset + 441), // helicopterProductionCost
+                getInt(buffer, offset + 445), // fighterDurability
+                getDouble(buffer, offset + 449), // fighterSpeed
+                getDouble(buffer, offset + 457), // fighterVisionRange
+                getDouble(buffer, offset + 465), // fighterGroundAttackRange
+                getDouble(buffer, offset + 473), // fighterAerialAttackRange
+                getInt(buffer, offset + 481), // fighterGroundDamage
+                getInt(buffer, offset + 485), // fighterAerialDamage
+                getInt(buffer, offset + 489), // fighterGroundDefence
+                getInt(buffer, offset + 493), // fighterAerialDefence
+                getInt(buffer, offset + 497), // fighterAttackCooldownTicks
+                getInt(buffer, offset + 501), // fighterProductionCost
+                getDouble(buffer, offset + 505), // maxFacilityCapturePoints
+                getDouble(buffer, offset + 513), // facilityCapturePointsPerVehiclePerTick
+                getDouble(buffer, offset + 521), // facilityWidth
+                getDouble(buffer, offset + 529), // facilityHeight
+                getInt(buffer, offset + 537), // baseTacticalNuclearStrikeCooldown
+                getInt(buffer, offset + 541), // tacticalNuclearStrikeCooldownDecreasePerControlCenter
+                getDouble(buffer, offset + 545), // maxTacticalNuclearStrikeDamage
+                getDouble(buffer, offset + 553), // tacticalNuclearStrikeRadius
+                getInt(buffer, offset + 561) // tacticalNuclearStrikeDelay
+        );
+    }
+
+    /**
+     * Декодирует {@code Player}, начиная с байта {@code offset}.
+     */
+    public static Player decodePlayer(byte[] buffer, int offset) {
+        return new Player(
+                getLong(buffer, offset), // id
+                getBoolean(buffer, offset + 8), // me
+                getBoolean(buffer, offset + 9), // strategyCrashed
+                getInt(buffer, offset + 10), // score
+                getInt(buffer, offset + 14), // remainingActionCooldownTicks
+                getInt(buffer, offset + 18), // remainingNuclearStrikeCooldownTicks
+                getLong(buffer, offset + 22), // nextNuclearStrikeVehicleId
+                getInt(buffer, offset + 30), // nextNuclearStrikeTickIndex
+                getDouble(buffer, offset + 34), // nextNuclearStrikeX
+                getDouble(buffer, offset + 42) // nextNuclearStrikeY
+        );
+    }
+
+    /**
+     * Декодирует {@code Vehicle}, начиная с байта {@code offset}.
+     *
+     * @param lowGroupMask  Слово маски групп с группами от 1 до 64, декодированное из массива групп, следующего
+     *                      за фиксированной частью.
+     * @param highGroupMask Слово маски групп с группами от 65 до 128.
+     */
+    public static Vehicle decodeVehicle(byte[] buffer, int offset, long lowGroupMask, long highGroupMask) {
+        return new Vehicle(
+                getLong(buffer, offset), // id
+                getDouble(buffer, offset + 8), // x
+                getDouble(buffer, offset + 16), // y
+                getDouble(buffer, offset + 24), // radius
+                getLong(buffer, offset + 32), // playerId
+                getInt(buffer, offset + 40), // durability
+                getInt(buffer, offset + 44), // maxDurability
+                getDouble(buffer, offset + 48), // maxSpeed
+                getDouble(buffer, offset + 56), // visionRange
+                getDouble(buffer, offset + 64), // squaredVisionRange
+                getDouble(buffer, offset + 72), // groundAttackRange
+                getDouble(buffer, offset + 80), // squaredGroundAttackRange
+                getDouble(buffer, offset + 88), // aerialAttackRange
+                getDouble(buffer, offset + 96), // squaredAerialAttackRange
+                getInt(buffer, offset + 104), // groundDamage
+                getInt(buffer, offset + 108), // aerialDamage
+                getInt(buffer, offset + 112), // groundDefence
+                getInt(buffer, offset + 116), // aerialDefence
+                getInt(buffer, offset + 120), // attackCooldownTicks
+                getInt(buffer, offset + 124), // remainingAttackCooldownTicks
+                decodeVehicleType(buffer[offset + 128]), // type
+                getBoolean(buffer, offset + 129), // aerial
+                getBoolean(buffer, offset + 130), // selected
+                lowGroupMask, highGroupMask // groups
+        );
+    }
+
+    /**
+     * Декодирует {@code VehicleUpdate}, начиная с байта {@code offset}.
+     *
+     * @param lowGroupMask  Слово маски групп с группами от 1 до 64, декодированное из массива групп, следующего
+     *                      за фиксированной частью.
+     * @param highGroupMask Слово маски групп с группами от 65 до 128.
+     */
+    public static VehicleUpdate decodeVehicleUpdate(byte[] buffer, int offset, long lowGroupMask, long highGroupMask) {
+        return new VehicleUpdate(
+                getLong(buffer, offset), // id
+                getDouble(buffer, offset + 8), // x
+                getDouble(buffer, offset + 16), // y
+                getInt(buffer, offset + 24), // durability
+                getInt(buffer, offset + 28), // remainingAttackCooldownTicks
+                getBoolean(buffer, offset + 32), // selected
+                lowGroupMask, highGroupMask // groups
+        );
+    }
+
+    /**
+     * Декодирует {@code Facility}, начиная с байта {@code offset}.
+     */
+    public static Facility decodeFacility(byte[] buffer, int offset) {
+        return new Facility(
+                getLong(buffer, offset), // id
+                decodeFacilityType(buffer[offset + 8]), // type
+                getLong(buffer, offset + 9), // ownerPlayerId
+                getDouble(buffer, offset + 17), // left
+                getDouble(buffer, offset + 25), // top
+                getDouble(buffer, offset + 33), // capturePoints
+                decodeVehicleType(buffer[offset + 41]), // vehicleType
+                getInt(buffer, offset + 42) // productionProgress
+        );
+    }
+
+    /**
+     * Кодирует {@code Move}, начиная с байта {@code offset}.
+     */
+    public static void encodeMove(Move move, byte[] buffer, int offset) {
+        buffer[offset] = encodeEnum(move.getAction());
+        putInt(buffer, offset + 1, move.getGroup());
+        putDouble(buffer, offset + 5, move.getLeft());
+        putDouble(buffer, offset + 13, move.getTop());
+        putDouble(buffer, offset + 21, move.getRight());
+        putDouble(buffer, offset + 29, move.getBottom());
+        putDouble(buffer, offset + 37, move.getX());
+        putDouble(buffer, offset + 45, move.getY());
+        putDouble(buffer, offset + 53, move.getAngle());
+        putDouble(buffer, offset + 61, move.getFactor());
+        putDouble(buffer, offset + 69, move.getMaxSpeed());
+        putDouble(buffer, offset + 77, move.getMaxAngularSpeed());
+        buffer[offset + 85] = encodeEnum(move.getVehicleType());
+        putLong(buffer, offset + 86, move.getFacilityId());
+        putLong(buffer, offset + 94, move.getVehicleId());
+    }
+
+    private static FacilityType decodeFacilityType(byte ordinal) {
+        return ordinal >= 0 && ordinal < FACILITY_TYPES.length ? FACILITY_TYPES[ordinal] : null;
+    }
+
+    private static VehicleType decodeVehicleType(byte ordinal) {
+        return ordinal >= 0 && ordinal < VEHICLE_TYPES.length ? VEHICLE_TYPES[ordinal] : null;
+    }
+
+    private static byte encodeEnum(Enum<?> value) {
+        return value == null ? -1 : (byte) value.ordinal();
+    }
+
+    private static boolean getBoolean(byte[] buffer, int offset) {
+        return buffer[offset] != 0;
+    }
+
+    private static int getInt(byte[] buffer, int offset) {
+        return buffer[offset] & 0xFF
+                | (buffer[offset + 1] & 0xFF) << 8
+                | (buffer[offset + 2] & 0xFF) << 16
+                | (buffer[offset + 3] & 0xFF) << 24;
+    }
+
+    private static long getLong(byte[] buffer, int offset) {
+        return buffer[offset] & 0xFFL
+                | (buffer[offset + 1] & 0xFFL) << 8
+                | (buffer[offset + 2] & 0xFFL) << 16
+                | (buffer[offset + 3] & 0xFFL) << 24
+                | (buffer[offset + 4] & 0xFFL) << 32
+                | (buffer[offset + 5] & 0xFFL) << 40
+                | (buffer[offset + 6] & 0xFFL) << 48
+                | (buffer[offset + 7] & 0xFFL) << 56;
+    }
+
+    private static double getDouble(byte[] buffer, int offset) {
+        return Double.longBitsToDouble(getLong(buffer, offset));
+    }
+
+    @SuppressWarnings("NumericCastThatLosesPrecision")
+    private static void putInt(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) (value >>> 0);
+        buffer[offset + 1] = (byte) (value >>> 8);
+        buffer[offset + 2] = (byte) (value >>> 16);
+        buffer[offset + 3] = (byte) (value >>> 24);
+    }
+
+    @SuppressWarnings("NumericCastThatLosesPrecision")
+    private static void putLong(byte[] buffer, int offset, long value) {
+        buffer[offset] = (byte) (value >>> 0);
+        buffer[offset + 1] = (byte) (value >>> 8);
+        buffer[offset + 2] = (byte) (value >>> 16);
+        buffer[offset + 3] = (byte) (value >>> 24);
+        buffer[offset + 4] = (byte) (value >>> 32);
+        buffer[offset + 5] = (byte) (value >>> 40);
+        buffer[offset + 6] = (byte) (value >>> 48);
+        buffer[offset + 7] = (byte) (value >>> 56);
+    }
+
+    private static void putDouble(byte[] buffer, int offset, double value) {
+        putLong(buffer, offset, Double.doubleToLongBits(value));
+    }
+}
@@ -0,0 +1,383 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Генератор класса {@code ProtocolCodec} по схеме протокола ({@code src/main/resources/protocol.schema}).
+ * <p>
+ * Для каждого сообщения схемы генерируется константа размера части сообщения фиксированной длины и метод, который
+ * декодирует модель из буфера или кодирует её в буфер, обращаясь к каждому полю по его абсолютному смещению.
+ * Смещения вычисляются генератором, поэтому порядок полей задаётся только схемой.
+ * <p>
+ * Запускается вручную после изменения схемы:
+ * {@code java ProtocolCodecGenerator src/main/resources/protocol.schema src/main/java/ProtocolCodec.java}.
+ */
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public final class ProtocolCodecGenerator {
+    private static final String CLASS_NAME = "ProtocolCodec";
+    private static final String GROUPS_TYPE = "groups";
+
+    private final List<Message> messages;
+    private final Set<String> decodedEnumTypes = new TreeSet<>();
+    private final Set<String> encodedEnumTypes = new TreeSet<>();
+    private final Set<String> decodedPrimitiveTypes = new TreeSet<>();
+    private final Set<String> encodedPrimitiveTypes = new TreeSet<>();
+    private final StringBuilder code = new StringBuilder();
+
+    private ProtocolCodecGenerator(List<Message> messages) {
+        this.messages = messages;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: java ProtocolCodecGenerator <schema file> <output file>");
+            System.exit(1);
+        }
+
+        List<Message> messages = parse(Files.readAllLines(Paths.get(args[0]), StandardCharsets.UTF_8));
+        String code = new ProtocolCodecGenerator(messages).generate();
+        Files.write(Paths.get(args[1]), code.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<Message> parse(List<String> lines) {
+        List<Message> messages = new ArrayList<>();
+        Message message = null;
+
+        for (int lineIndex = 0; lineIndex < lines.size(); ++lineIndex) {
+            String line = lines.get(lineIndex).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] tokens = line.split("\\s+");
+            if (tokens.length != (tokens[0].equals("message") ? 3 : 2)) {
+                throw new IllegalArgumentException("Malformed schema line " + (lineIndex + 1) + ": " + line);
+            }
+
+            if (tokens[0].equals("message")) {
+                if (!tokens[2].equals("decode") && !tokens[2].equals("encode")) {
+                    throw new IllegalArgumentException("Unknown direction at line " + (lineIndex + 1) + ": " + line);
+                }
+
+                message = new Message(tokens[1], tokens[2].equals("decode"));
+                messages.add(message);
+            } else if (message == null) {
+                throw new IllegalArgumentException("Field outside of message at line " + (lineIndex + 1) + '.');
+            } else if (message.hasGroups()) {
+                throw new IllegalArgumentException("Field after groups at line " + (lineIndex + 1) + '.');
+            } else {
+                message.fields.add(new Field(tokens[0], tokens[1]));
+            }
+        }
+
+        return messages;
+    }
+
+    private String generate() {
+        for (Message message : messages) {
+            for (Field field : message.fields) {
+                if (field.isEnum()) {
+                    (message.decode ? decodedEnumTypes : encodedEnumTypes).add(field.type);
+                } else if (!field.type.equals(GROUPS_TYPE)) {
+                    (message.decode ? decodedPrimitiveTypes : encodedPrimitiveTypes).add(field.type);
+                }
+            }
+        }
+
+        Set<String> imports = new TreeSet<>(decodedEnumTypes);
+        imports.addAll(encodedEnumTypes);
+        for (Message message : messages) {
+            imports.add(message.name);
+        }
+
+        for (String type : imports) {
+            line("import model.%s;", type);
+        }
+
+        line("");
+        line("/**");
+        line(" * Кодек сообщений протокола: чтение и запись полей моделей по абсолютным смещениям в буфере.");
+        line(" * <p>");
+        line(" * Сгенерирован {@link ProtocolCodecGenerator} по схеме {@code protocol.schema}. Не редактировать "
+                + "вручную.");
+        line(" */");
+        line("@SuppressWarnings({\"WeakerAccess\", \"OverlyLongMethod\"})");
+        line("public final class %s {", CLASS_NAME);
+
+        for (Message message : messages) {
+            line("    public static final int %s_SIZE = %d;", toConstantName(message.name), message.getFixedSize());
+        }
+
+        if (!decodedEnumTypes.isEmpty()) {
+            line("");
+            for (String type : decodedEnumTypes) {
+                line("    private static final %s[] %sS = %s.values();", type, toConstantName(type), type);
+            }
+        }
+
+        line("");
+        line("    private %s() {", CLASS_NAME);
+        line("        throw new UnsupportedOperationException();");
+        line("    }");
+
+        for (Message message : messages) {
+            line("");
+            if (message.decode) {
+                generateDecoder(message);
+            } else {
+                generateEncoder(message);
+            }
+        }
+
+        generateHelpers();
+        line("}");
+
+        return code.toString();
+    }
+
+    private void generateDecoder(Message message) {
+        line("    /**");
+        line("     * Декодирует {@code %s}, начиная с байта {@code offset}.", message.name);
+        if (message.hasGroups()) {
+            line("     *");
+            line("     * @param lowGroupMask  Слово маски групп с группами от 1 до 64, декодированное из массива "
+                    + "групп, следующего");
+            line("     *                      за фиксированной частью.");
+            line("     * @param highGroupMask Слово маски групп с группами от 65 до 128.");
+        }
+        line("     */");
+
+        line("    public static %s decode%s(byte[] buffer, int offset%s) {",
+                message.name, message.name, message.hasGroups() ? ", long lowGroupMask, long highGroupMask" : "");
+        line("        return new %s(", message.name);
+
+        int offset = 0;
+        for (int i = 0; i < message.fields.size(); ++i) {
+            Field field = message.fields.get(i);
+            String value;
+
+            if (field.type.equals(GROUPS_TYPE)) {
+                value = "lowGroupMask, highGroupMask";
+            } else if (field.isEnum()) {
+                value = String.format("decode%s(buffer[%s])", field.type, formatOffset(offset));
+            } else {
+                value = String.format("get%s(buffer, %s)", capitalize(field.type), formatOffset(offset));
+            }
+
+            line("                %s%s // %s", value, i + 1 < message.fields.size() ? "," : "", field.name);
+            offset += field.getSize();
+        }
+
+        line("        );");
+        line("    }");
+    }
+
+    private void generateEncoder(Message message) {
+        line("    /**");
+        line("     * Кодирует {@code %s}, начиная с байта {@code offset}.", message.name);
+        line("     */");
+
+        String variable = Character.toLowerCase(message.name.charAt(0)) + message.name.substring(1);
+        line("    public static void encode%s(%s %s, byte[] buffer, int offset) {",
+                message.name, message.name, variable);
+
+        int offset = 0;
+        for (Field field : message.fields) {
+            if (field.type.equals(GROUPS_TYPE)) {
+                throw new IllegalArgumentException("Groups can't be encoded: " + message.name + '.');
+            }
+
+            String getter = String.format("%s.%s%s()", variable, field.type.equals("boolean") ? "is" : "get",
+                    capitalize(field.name));
+
+            if (field.isEnum()) {
+                line("        buffer[%s] = encodeEnum(%s);", formatOffset(offset), getter);
+            } else {
+                line("        put%s(buffer, %s, %s);", capitalize(field.type), formatOffset(offset), getter);
+            }
+
+            offset += field.getSize();
+        }
+
+        line("    }");
+    }
+
+    private void generateHelpers() {
+        for (String type : decodedEnumTypes) {
+            line("");
+            line("    private static %s decode%s(byte ordinal) {", type, type);
+            line("        return ordinal >= 0 && ordinal < %sS.length ? %sS[ordinal] : null;",
+                    toConstantName(type), toConstantName(type));
+            line("    }");
+        }
+
+        if (!encodedEnumTypes.isEmpty()) {
+            line("");
+            line("    private static byte encodeEnum(Enum<?> value) {");
+            line("        return value == null ? -1 : (byte) value.ordinal();");
+            line("    }");
+        }
+
+        if (decodedPrimitiveTypes.contains("boolean")) {
+            line("");
+            line("    private static boolean getBoolean(byte[] buffer, int offset) {");
+            line("        return buffer[offset] != 0;");
+            line("    }");
+        }
+
+        if (decodedPrimitiveTypes.contains("byte")) {
+            line("");
+            line("    private static byte getByte(byte[] buffer, int offset) {");
+            line("        return buffer[offset];");
+            line("    }");
+        }
+
+        if (decodedPrimitiveTypes.contains("int")) {
+            line("");
+            line("    private static int getInt(byte[] buffer, int offset) {");
+            line("        return buffer[offset] & 0xFF");
+            line("                | (buffer[offset + 1] & 0xFF) << 8");
+            line("                | (buffer[offset + 2] & 0xFF) << 16");
+            line("                | (buffer[offset + 3] & 0xFF) << 24;");
+            line("    }");
+        }
+
+        if (decodedPrimitiveTypes.contains("long") || decodedPrimitiveTypes.contains("double")) {
+            line("");
+            line("    private static long getLong(byte[] buffer, int offset) {");
+            line("        return buffer[offset] & 0xFFL");
+            for (int i = 1; i < 8; ++i) {
+                line("                | (buffer[offset + %d] & 0xFFL) << %d%s", i, 8 * i, i == 7 ? ";" : "");
+            }
+            line("    }");
+        }
+
+        if (decodedPrimitiveTypes.contains("double")) {
+            line("");
+            line("    private static double getDouble(byte[] buffer, int offset) {");
+            line("        return Double.longBitsToDouble(getLong(buffer, offset));");
+            line("    }");
+        }
+
+        if (encodedPrimitiveTypes.contains("boolean")) {
+            line("");
+            line("    private static void putBoolean(byte[] buffer, int offset, boolean value) {");
+            line("        buffer[offset] = value ? (byte) 1 : (byte) 0;");
+            line("    }");
+        }
+
+        if (encodedPrimitiveTypes.contains("byte")) {
+            line("");
+            line("    private static void putByte(byte[] buffer, int offset, byte value) {");
+            line("        buffer[offset] = value;");
+            line("    }");
+        }
+
+        if (encodedPrimitiveTypes.contains("int")) {
+            line("");
+            line("    @SuppressWarnings(\"NumericCastThatLosesPrecision\")");
+            line("    private static void putInt(byte[] buffer, int offset, int value) {");
+            for (int i = 0; i < 4; ++i) {
+                line("        buffer[offset%s] = (byte) (value >>> %d);", i == 0 ? "" : " + " + i, 8 * i);
+            }
+            line("    }");
+        }
+
+        if (encodedPrimitiveTypes.contains("long") || encodedPrimitiveTypes.contains("double")) {
+            line("");
+            line("    @SuppressWarnings(\"NumericCastThatLosesPrecision\")");
+            line("    private static void putLong(byte[] buffer, int offset, long value) {");
+            for (int i = 0; i < 8; ++i) {
+                line("        buffer[offset%s] = (byte) (value >>> %d);", i == 0 ? "" : " + " + i, 8 * i);
+            }
+            line("    }");
+        }
+
+        if (encodedPrimitiveTypes.contains("double")) {
+            line("");
+            line("    private static void putDouble(byte[] buffer, int offset, double value) {");
+            line("        putLong(buffer, offset, Double.doubleToLongBits(value));");
+            line("    }");
+        }
+    }
+
+    private void line(String format, Object... args) {
+        code.append(args.length == 0 ? format : String.format(format, args)).append('\n');
+    }
+
+    private static String formatOffset(int offset) {
+        return offset == 0 ? "offset" : "offset + " + offset;
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static String toConstantName(String name) {
+        return name.replaceAll("([a-z])([A-Z])", "$1_$2").toUpperCase();
+    }
+
+    private static final class Message {
+        private final String name;
+        private final boolean decode;
+        private final List<Field> fields = new ArrayList<>();
+
+        private Message(String name, boolean decode) {
+            this.name = name;
+            this.decode = decode;
+        }
+
+        private boolean hasGroups() {
+            return !fields.isEmpty() && fields.get(fields.size() - 1).type.equals(GROUPS_TYPE);
+        }
+
+        private int getFixedSize() {
+            int size = 0;
+            for (Field field : fields) {
+                size += field.getSize();
+            }
+            return size;
+        }
+    }
+
+    private static final class Field {
+        private final String type;
+        private final String name;
+
+        private Field(String type, String name) {
+            this.type = type;
+            this.name = name;
+        }
+
+        private boolean isEnum() {
+            return Character.isUpperCase(type.charAt(0));
+        }
+
+        private int getSize() {
+            if (isEnum()) {
+                return Byte.BYTES;
+            }
+
+            switch (type) {
+                case "byte":
+                case "boolean":
+                    return Byte.BYTES;
+                case "int":
+                    return Integer.BYTES;
+                case "long":
+                    return Long.BYTES;
+                case "double":
+                    return Double.BYTES;
+                case GROUPS_TYPE:
+                    return 0;
+                default:
+                    throw new IllegalArgumentException("Unsupported field type: " + type + '.');
+            }
+        }
+    }
+}
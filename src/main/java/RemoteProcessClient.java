@@ -4,20 +4,34 @@ import java.io.*;
 import java.lang.reflect.Array;
 import java.net.InetSocketAddress;
 import java.net.Socket;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public final class RemoteProcessClient implements Closeable {
     private static final int BUFFER_SIZE_BYTES = 1 << 20;
-    private static final ByteOrder PROTOCOL_BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
     private static final int INTEGER_SIZE_BYTES = Integer.SIZE / Byte.SIZE;
     private static final int LONG_SIZE_BYTES = Long.SIZE / Byte.SIZE;
+    private static final int MIN_PARALLEL_VEHICLE_COUNT = 256;
+    private static final int MAX_RECORD_SIZE = Math.max(ProtocolCodec.GAME_SIZE, Math.max(
+            Math.max(ProtocolCodec.PLAYER_SIZE, ProtocolCodec.FACILITY_SIZE),
+            Math.max(Math.max(ProtocolCodec.VEHICLE_SIZE, ProtocolCodec.VEHICLE_UPDATE_SIZE), ProtocolCodec.MOVE_SIZE)
+    ));
 
     private static final byte[] EMPTY_BYTE_ARRAY = new byte[0];
 
+    private static final MessageType[] MESSAGE_TYPES = MessageType.values();
+    private static final TerrainType[] TERRAIN_TYPES = TerrainType.values();
+    private static final WeatherType[] WEATHER_TYPES = WeatherType.values();
+
     private final Socket socket;
     private final InputStream inputStream;
     private final OutputStream outputStream;
@@ -28,8 +42,20 @@ public final class RemoteProcessClient implements Closeable {
     private TerrainType[][] terrainByCellXY;
     private WeatherType[][] weatherByCellXY;
 
-    private final Map<Long, Player> previousPlayerById = new HashMap<>();
-    private final Map<Long, Facility> previousFacilityById = new HashMap<>();
+    private final LongObjectMap<Player> previousPlayerById = new LongObjectMap<>();
+    private final LongObjectMap<Facility> previousFacilityById = new LongObjectMap<>();
+
+    /**
+     * Общий буфер для чтения и записи отдельных записей протокола: фиксированная часть записи читается в начало
+     * буфера, идентификаторы групп техники --- сразу за ней. Буфер растёт только при необычно большом числе групп.
+     */
+    private byte[] recordBuffer = new byte[MAX_RECORD_SIZE];
+    private final byte[] primitiveBuffer = new byte[LONG_SIZE_BYTES];
+
+    private int vehicleDecodingThreadCount = 1;
+    private ExecutorService vehicleDecodingExecutor;
+    private byte[] vehicleBuffer = EMPTY_BYTE_ARRAY;
+    private int[] vehicleOffsets = new int[0];
 
     public RemoteProcessClient(String host, int port) throws IOException {
         socket = new Socket();
@@ -38,7 +64,7 @@ public final class RemoteProcessClient implements Closeable {
         socket.setTcpNoDelay(true);
         socket.connect(new InetSocketAddress(host, port));
 
-        inputStream = socket.getInputStream();
+        inputStream = new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE_BYTES);
         outputStream = socket.getOutputStream();
         outputStreamBuffer = new ByteArrayOutputStream(BUFFER_SIZE_BYTES);
     }
@@ -56,34 +82,22 @@ public final class RemoteProcessClient implements Closeable {
     }
 
     public void readTeamSizeMessage() throws IOException {
-        ensureMessageType(readEnum(MessageType.class), MessageType.TEAM_SIZE);
+        ensureMessageType(readMessageType(), MessageType.TEAM_SIZE);
         readInt();
     }
 
     public Game readGameContextMessage() throws IOException {
-        ensureMessageType(readEnum(MessageType.class), MessageType.GAME_CONTEXT);
+        ensureMessageType(readMessageType(), MessageType.GAME_CONTEXT);
         if (!readBoolean()) {
             return null;
         }
 
-        return new Game(
-                readLong(), readInt(), readDouble(), readDouble(), readBoolean(), readInt(), readInt(), readInt(),
-                readInt(), readInt(), readInt(), readInt(), readInt(), readInt(), readDouble(), readDouble(),
-                readDouble(), readDouble(), readDouble(), readDouble(), readDouble(), readDouble(), readDouble(),
-                readDouble(), readDouble(), readDouble(), readDouble(), readDouble(), readDouble(), readDouble(),
-                readDouble(), readDouble(), readDouble(), readInt(), readDouble(), readDouble(), readDouble(),
-                readDouble(), readInt(), readInt(), readInt(), readInt(), readInt(), readInt(), readInt(), readDouble(),
-                readDouble(), readDouble(), readDouble(), readInt(), readInt(), readInt(), readInt(), readInt(),
-                readInt(), readInt(), readDouble(), readDouble(), readInt(), readInt(), readInt(), readDouble(),
-                readDouble(), readInt(), readDouble(), readDouble(), readDouble(), readDouble(), readInt(), readInt(),
-                readInt(), readInt(), readInt(), readInt(), readInt(), readDouble(), readDouble(), readDouble(),
-                readDouble(), readInt(), readInt(), readInt(), readInt(), readInt(), readInt(), readDouble(),
-                readDouble(), readDouble(), readDouble(), readInt(), readInt(), readDouble(), readDouble(), readInt()
-        );
+        readBytes(recordBuffer, 0, ProtocolCodec.GAME_SIZE);
+        return ProtocolCodec.decodeGame(recordBuffer, 0);
     }
 
     public PlayerContext readPlayerContextMessage() throws IOException {
-        MessageType messageType = readEnum(MessageType.class);
+        MessageType messageType = readMessageType();
         if (messageType == MessageType.GAME_OVER) {
             return null;
         }
@@ -100,21 +114,8 @@ public final class RemoteProcessClient implements Closeable {
         } else {
             writeBoolean(true);
 
-            writeEnum(move.getAction());
-            writeInt(move.getGroup());
-            writeDouble(move.getLeft());
-            writeDouble(move.getTop());
-            writeDouble(move.getRight());
-            writeDouble(move.getBottom());
-            writeDouble(move.getX());
-            writeDouble(move.getY());
-            writeDouble(move.getAngle());
-            writeDouble(move.getFactor());
-            writeDouble(move.getMaxSpeed());
-            writeDouble(move.getMaxAngularSpeed());
-            writeEnum(move.getVehicleType());
-            writeLong(move.getFacilityId());
-            writeLong(move.getVehicleId());
+            ProtocolCodec.encodeMove(move, recordBuffer, 0);
+            outputStreamBuffer.write(recordBuffer, 0, ProtocolCodec.MOVE_SIZE);
         }
 
         flush();
@@ -122,9 +123,44 @@ public final class RemoteProcessClient implements Closeable {
 
     @Override
     public void close() throws IOException {
+        if (vehicleDecodingExecutor != null) {
+            vehicleDecodingExecutor.shutdownNow();
+        }
+
         socket.close();
     }
 
+    /**
+     * Включает параллельное декодирование больших массивов новой техники (в первую очередь массива всей техники в
+     * первом тике). Записи техники сначала копируются из потока в буфер с запоминанием их границ, после чего буфер
+     * делится на части, которые декодируются в {@code threadCount} потоках. При {@code threadCount <= 1} техника
+     * декодируется последовательно.
+     * <p>
+     * Потоки декодирования создаются и запускаются сразу, чтобы их запуск не приходился на первый тик, в котором
+     * приходит массив всей техники. Поэтому метод следует вызывать до чтения первого сообщения {@code PLAYER_CONTEXT}.
+     */
+    public void setVehicleDecodingThreadCount(int threadCount) {
+        if (vehicleDecodingExecutor != null) {
+            vehicleDecodingExecutor.shutdownNow();
+            vehicleDecodingExecutor = null;
+        }
+
+        vehicleDecodingThreadCount = threadCount;
+
+        if (threadCount > 1) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                    threadCount, threadCount, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                        Thread thread = new Thread(runnable, "vehicle-decoder");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+            );
+
+            executor.prestartAllCoreThreads();
+            vehicleDecodingExecutor = executor;
+        }
+    }
+
     private World readWorld() throws IOException {
         if (!readBoolean()) {
             return null;
@@ -132,8 +168,8 @@ public final class RemoteProcessClient implements Closeable {
 
         return new World(
                 readInt(), readInt(), readDouble(), readDouble(), readPlayers(), readVehicles(), readVehicleUpdates(),
-                terrainByCellXY == null ? (terrainByCellXY = readEnumArray2D(TerrainType.class)) : terrainByCellXY,
-                weatherByCellXY == null ? (weatherByCellXY = readEnumArray2D(WeatherType.class)) : weatherByCellXY,
+                terrainByCellXY == null ? (terrainByCellXY = readTerrainTypeArray2D()) : terrainByCellXY,
+                weatherByCellXY == null ? (weatherByCellXY = readWeatherTypeArray2D()) : weatherByCellXY,
                 readFacilities()
         );
     }
@@ -154,16 +190,111 @@ public final class RemoteProcessClient implements Closeable {
             return previousPlayerById.get(readLong());
         }
 
-        Player player = new Player(
-                readLong(), readBoolean(), readBoolean(), readInt(), readInt(), readInt(), readLong(), readInt(),
-                readDouble(), readDouble()
-        );
+        readBytes(recordBuffer, 0, ProtocolCodec.PLAYER_SIZE);
+        Player player = ProtocolCodec.decodePlayer(recordBuffer, 0);
         previousPlayerById.put(player.getId(), player);
         return player;
     }
 
     private Vehicle[] readVehicles() throws IOException {
-        return readArray(Vehicle.class, this::readVehicle);
+        if (vehicleDecodingThreadCount <= 1) {
+            return readArray(Vehicle.class, this::readVehicle);
+        }
+
+        int length = readInt();
+        if (length < 0) {
+            return null;
+        }
+
+        Vehicle[] vehicles = new Vehicle[length];
+
+        if (length < MIN_PARALLEL_VEHICLE_COUNT) {
+            for (int i = 0; i < length; ++i) {
+                vehicles[i] = readVehicle();
+            }
+
+            return vehicles;
+        }
+
+        bufferVehicles(length);
+        decodeVehicles(vehicles);
+        return vehicles;
+    }
+
+    /**
+     * Копирует {@code length} записей техники в {@code vehicleBuffer}. Смещение фиксированной части каждой записи
+     * сохраняется в {@code vehicleOffsets}, для отсутствующей техники сохраняется {@code -1}.
+     */
+    private void bufferVehicles(int length) throws IOException {
+        if (vehicleOffsets.length < length) {
+            vehicleOffsets = new int[length];
+        }
+
+        int headerSize = ProtocolCodec.VEHICLE_SIZE + INTEGER_SIZE_BYTES;
+        int position = 0;
+
+        for (int i = 0; i < length; ++i) {
+            if (!readBoolean()) {
+                vehicleOffsets[i] = -1;
+                continue;
+            }
+
+            ensureVehicleBufferCapacity(position + headerSize);
+            readBytes(vehicleBuffer, position, headerSize);
+            vehicleOffsets[i] = position;
+
+            int groupCount = Math.max(0, getInt(vehicleBuffer, position + ProtocolCodec.VEHICLE_SIZE));
+            position += headerSize;
+
+            ensureVehicleBufferCapacity(position + groupCount * INTEGER_SIZE_BYTES);
+            readBytes(vehicleBuffer, position, groupCount * INTEGER_SIZE_BYTES);
+            position += groupCount * INTEGER_SIZE_BYTES;
+        }
+    }
+
+    private void decodeVehicles(Vehicle[] vehicles) throws IOException {
+        byte[] buffer = vehicleBuffer;
+        int[] offsets = vehicleOffsets;
+        int chunkSize = (vehicles.length + vehicleDecodingThreadCount - 1) / vehicleDecodingThreadCount;
+        List<Callable<Void>> chunks = new ArrayList<>(vehicleDecodingThreadCount);
+
+        for (int chunkStart = 0; chunkStart < vehicles.length; chunkStart += chunkSize) {
+            int start = chunkStart;
+            int end = Math.min(vehicles.length, chunkStart + chunkSize);
+
+            chunks.add(() -> {
+                for (int i = start; i < end; ++i) {
+                    int offset = offsets[i];
+                    if (offset >= 0) {
+                        int groupCount = getInt(buffer, offset + ProtocolCodec.VEHICLE_SIZE);
+                        int groupOffset = offset + ProtocolCodec.VEHICLE_SIZE + INTEGER_SIZE_BYTES;
+
+                        vehicles[i] = ProtocolCodec.decodeVehicle(
+                                buffer, offset, decodeGroupMask(buffer, groupOffset, groupCount, 0),
+                                decodeGroupMask(buffer, groupOffset, groupCount, 1)
+                        );
+                    }
+                }
+                return null;
+            });
+        }
+
+        try {
+            for (Future<Void> future : vehicleDecodingExecutor.invokeAll(chunks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while decoding vehicles.");
+        } catch (ExecutionException e) {
+            throw new IOException("Can't decode vehicles.", e.getCause());
+        }
+    }
+
+    private void ensureVehicleBufferCapacity(int capacity) {
+        if (vehicleBuffer.length < capacity) {
+            vehicleBuffer = Arrays.copyOf(vehicleBuffer, Math.max(capacity, 2 * vehicleBuffer.length));
+        }
     }
 
     private Vehicle readVehicle() throws IOException {
@@ -171,11 +302,12 @@ public final class RemoteProcessClient implements Closeable {
             return null;
         }
 
-        return new Vehicle(
-                readLong(), readDouble(), readDouble(), readDouble(), readLong(), readInt(), readInt(), readDouble(),
-                readDouble(), readDouble(), readDouble(), readDouble(), readDouble(), readDouble(), readInt(),
-                readInt(), readInt(), readInt(), readInt(), readInt(), readEnum(VehicleType.class), readBoolean(),
-                readBoolean(), readIntArray()
+        readBytes(recordBuffer, 0, ProtocolCodec.VEHICLE_SIZE);
+        int groupCount = readGroups(ProtocolCodec.VEHICLE_SIZE);
+
+        return ProtocolCodec.decodeVehicle(
+                recordBuffer, 0, decodeGroupMask(recordBuffer, ProtocolCodec.VEHICLE_SIZE, groupCount, 0),
+                decodeGroupMask(recordBuffer, ProtocolCodec.VEHICLE_SIZE, groupCount, 1)
         );
     }
 
@@ -195,10 +327,8 @@ public final class RemoteProcessClient implements Closeable {
             return previousFacilityById.get(readLong());
         }
 
-        Facility facility = new Facility(
-                readLong(), readEnum(FacilityType.class), readLong(), readDouble(), readDouble(), readDouble(),
-                readEnum(VehicleType.class), readInt()
-        );
+        readBytes(recordBuffer, 0, ProtocolCodec.FACILITY_SIZE);
+        Facility facility = ProtocolCodec.decodeFacility(recordBuffer, 0);
         previousFacilityById.put(facility.getId(), facility);
         return facility;
     }
@@ -212,8 +342,12 @@ public final class RemoteProcessClient implements Closeable {
             return null;
         }
 
-        return new VehicleUpdate(
-                readLong(), readDouble(), readDouble(), readInt(), readInt(), readBoolean(), readIntArray()
+        readBytes(recordBuffer, 0, ProtocolCodec.VEHICLE_UPDATE_SIZE);
+        int groupCount = readGroups(ProtocolCodec.VEHICLE_UPDATE_SIZE);
+
+        return ProtocolCodec.decodeVehicleUpdate(
+                recordBuffer, 0, decodeGroupMask(recordBuffer, ProtocolCodec.VEHICLE_UPDATE_SIZE, groupCount, 0),
+                decodeGroupMask(recordBuffer, ProtocolCodec.VEHICLE_UPDATE_SIZE, groupCount, 1)
         );
     }
 
@@ -272,57 +406,53 @@ public final class RemoteProcessClient implements Closeable {
         }
     }
 
-    private <E extends Enum> E readEnum(Class<E> enumClass) throws IOException {
-        byte ordinal = readByte();
-
-        E[] values = enumClass.getEnumConstants();
-        return ordinal >= 0 && ordinal < values.length ? values[ordinal] : null;
+    private MessageType readMessageType() throws IOException {
+        return decodeEnum(MESSAGE_TYPES, readByte());
     }
 
-    @SuppressWarnings("SubtractionInCompareTo")
-    private <E extends Enum> E[] readEnumArray(Class<E> enumClass, int count) throws IOException {
-        byte[] bytes = readBytes(count);
-        @SuppressWarnings("unchecked") E[] array = (E[]) Array.newInstance(enumClass, count);
+    private TerrainType[][] readTerrainTypeArray2D() throws IOException {
+        int count = readInt();
+        if (count < 0) {
+            return null;
+        }
 
-        E[] values = enumClass.getEnumConstants();
-        int valueCount = values.length;
+        TerrainType[][] array = new TerrainType[count][];
 
         for (int i = 0; i < count; ++i) {
-            byte ordinal = bytes[i];
-
-            if (ordinal >= 0 && ordinal < valueCount) {
-                array[i] = values[ordinal];
-            }
+            int rowCount = readInt();
+            array[i] = rowCount < 0
+                    ? null
+                    : decodeEnumArray(TERRAIN_TYPES, readBytes(rowCount), new TerrainType[rowCount]);
         }
 
         return array;
     }
 
-    private <E extends Enum> E[] readEnumArray(Class<E> enumClass) throws IOException {
+    private WeatherType[][] readWeatherTypeArray2D() throws IOException {
         int count = readInt();
         if (count < 0) {
             return null;
         }
 
-        return readEnumArray(enumClass, count);
-    }
+        WeatherType[][] array = new WeatherType[count][];
 
-    @SuppressWarnings("unchecked")
-    private <E extends Enum> E[][] readEnumArray2D(Class<E> enumClass) throws IOException {
-        int count = readInt();
-        if (count < 0) {
-            return null;
+        for (int i = 0; i < count; ++i) {
+            int rowCount = readInt();
+            array[i] = rowCount < 0
+                    ? null
+                    : decodeEnumArray(WEATHER_TYPES, readBytes(rowCount), new WeatherType[rowCount]);
         }
 
-        E[][] array;
-        try {
-            array = (E[][]) Array.newInstance(Class.forName("[L" + enumClass.getName() + ';'), count);
-        } catch (ClassNotFoundException e) {
-            throw new IllegalArgumentException("Can't load array class for " + enumClass + '.', e);
-        }
+        return array;
+    }
 
-        for (int i = 0; i < count; ++i) {
-            array[i] = readEnumArray(enumClass);
+    private static <E> E decodeEnum(E[] values, byte ordinal) {
+        return ordinal >= 0 && ordinal < values.length ? values[ordinal] : null;
+    }
+
+    private static <E> E[] decodeEnumArray(E[] values, byte[] ordinals, E[] array) {
+        for (int i = 0; i < ordinals.length; ++i) {
+            array[i] = decodeEnum(values, ordinals[i]);
         }
 
         return array;
@@ -397,56 +527,65 @@ public final class RemoteProcessClient implements Closeable {
     }
 
     private int readInt() throws IOException {
-        return ByteBuffer.wrap(readBytes(INTEGER_SIZE_BYTES)).order(PROTOCOL_BYTE_ORDER).getInt();
+        readBytes(primitiveBuffer, 0, INTEGER_SIZE_BYTES);
+        return getInt(primitiveBuffer, 0);
     }
 
-    private int[] readIntArray(int count) throws IOException {
-        byte[] bytes = readBytes(count * INTEGER_SIZE_BYTES);
-        int[] array = new int[count];
+    /**
+     * Читает массив групп техники в {@code recordBuffer}, начиная со смещения {@code offset}.
+     *
+     * @return Возвращает количество групп.
+     */
+    private int readGroups(int offset) throws IOException {
+        int count = Math.max(0, readInt());
+        int byteCount = count * INTEGER_SIZE_BYTES;
 
-        for (int i = 0; i < count; ++i) {
-            array[i] = ByteBuffer.wrap(
-                    bytes, i * INTEGER_SIZE_BYTES, INTEGER_SIZE_BYTES
-            ).order(PROTOCOL_BYTE_ORDER).getInt();
+        if (recordBuffer.length < offset + byteCount) {
+            recordBuffer = Arrays.copyOf(recordBuffer, offset + byteCount);
         }
 
-        return array;
+        readBytes(recordBuffer, offset, byteCount);
+        return count;
     }
 
-    private int[] readIntArray() throws IOException {
-        int count = readInt();
-        if (count < 0) {
-            return null;
-        }
-
-        return readIntArray(count);
-    }
+    private static long decodeGroupMask(byte[] bytes, int offset, int count, int word) {
+        long groupMask = 0L;
 
-    private int[][] readIntArray2D() throws IOException {
-        int count = readInt();
-        if (count < 0) {
-            return null;
+        for (int i = 0; i < count; ++i) {
+            groupMask |= Vehicle.toGroupMask(getInt(bytes, offset + i * INTEGER_SIZE_BYTES), word);
         }
 
-        int[][] array = new int[count][];
+        return groupMask;
+    }
 
-        for (int i = 0; i < count; ++i) {
-            array[i] = readIntArray();
-        }
+    private static int getInt(byte[] bytes, int offset) {
+        return bytes[offset] & 0xFF
+                | (bytes[offset + 1] & 0xFF) << 8
+                | (bytes[offset + 2] & 0xFF) << 16
+                | (bytes[offset + 3] & 0xFF) << 24;
+    }
 
-        return array;
+    private static void putInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) value;
+        bytes[offset + 1] = (byte) (value >>> 8);
+        bytes[offset + 2] = (byte) (value >>> 16);
+        bytes[offset + 3] = (byte) (value >>> 24);
     }
 
     private void writeInt(int value) throws IOException {
-        writeBytes(ByteBuffer.allocate(INTEGER_SIZE_BYTES).order(PROTOCOL_BYTE_ORDER).putInt(value).array());
+        putInt(primitiveBuffer, 0, value);
+        outputStreamBuffer.write(primitiveBuffer, 0, INTEGER_SIZE_BYTES);
     }
 
     private long readLong() throws IOException {
-        return ByteBuffer.wrap(readBytes(LONG_SIZE_BYTES)).order(PROTOCOL_BYTE_ORDER).getLong();
+        readBytes(primitiveBuffer, 0, LONG_SIZE_BYTES);
+        return getInt(primitiveBuffer, 0) & 0xFFFFFFFFL | (long) getInt(primitiveBuffer, INTEGER_SIZE_BYTES) << 32;
     }
 
     private void writeLong(long value) throws IOException {
-        writeBytes(ByteBuffer.allocate(LONG_SIZE_BYTES).order(PROTOCOL_BYTE_ORDER).putLong(value).array());
+        putInt(primitiveBuffer, 0, (int) value);
+        putInt(primitiveBuffer, INTEGER_SIZE_BYTES, (int) (value >>> 32));
+        outputStreamBuffer.write(primitiveBuffer, 0, LONG_SIZE_BYTES);
     }
 
     private double readDouble() throws IOException {
@@ -459,18 +598,22 @@ public final class RemoteProcessClient implements Closeable {
 
     private byte[] readBytes(int byteCount) throws IOException {
         byte[] bytes = new byte[byteCount];
-        int offset = 0;
+        readBytes(bytes, 0, byteCount);
+        return bytes;
+    }
+
+    private void readBytes(byte[] bytes, int offset, int byteCount) throws IOException {
+        int readOffset = 0;
         int readByteCount;
 
-        while (offset < byteCount && (readByteCount = inputStream.read(bytes, offset, byteCount - offset)) != -1) {
-            offset += readByteCount;
+        while (readOffset < byteCount
+                && (readByteCount = inputStream.read(bytes, offset + readOffset, byteCount - readOffset)) != -1) {
+            readOffset += readByteCount;
         }
 
-        if (offset != byteCount) {
+        if (readOffset != byteCount) {
             throw new IOException(String.format("Can't read %d bytes from input stream.", byteCount));
         }
-
-        return bytes;
     }
 
     private void writeBytes(byte[] bytes) throws IOException {
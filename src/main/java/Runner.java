@@ -1,8 +1,33 @@
 import model.*;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 public final class Runner {
+    private static final int VEHICLE_DECODING_THREAD_COUNT = 4;
+
+    /**
+     * Бюджет прогрева JIT-компилятора перед первым тиком ({@link JitWarmUp}). Прогрев отключается нулевым значением.
+     */
+    private static final long WARM_UP_BUDGET_MILLIS = Long.getLong("runner.warmUpBudgetMillis", 300L);
+
+    /**
+     * Печатать ли отчёт о прогреве JIT-компилятора в {@code System.err}. Стандартный вывод не используется.
+     * <p>
+     * Количество скомпилированных методов в отчёте берётся из внутреннего счётчика HotSpot и начиная с Java 9 доступно
+     * только при запуске с ключом {@code --add-exports java.management/sun.management=ALL-UNNAMED}; без него в отчёте
+     * выводится {@code unknown}, а время компиляции выводится всегда.
+     */
+    private static final boolean WARM_UP_REPORT = Boolean.getBoolean("runner.warmUpReport");
+
+    /**
+     * Срок на ход стратегии ({@link MoveWatchdog}). Нулевое значение отключает ограничение: стратегия вызывается в
+     * потоке игры.
+     */
+    private static final long MOVE_DEADLINE_MILLIS = Long.getLong("runner.moveDeadlineMillis", 0L);
+
     private final RemoteProcessClient remoteProcessClient;
     private final String token;
 
@@ -12,20 +37,41 @@ public final class Runner {
 
     private Runner(String[] args) throws IOException {
         remoteProcessClient = new RemoteProcessClient(args[0], Integer.parseInt(args[1]));
+        remoteProcessClient.setVehicleDecodingThreadCount(
+                Math.min(VEHICLE_DECODING_THREAD_COUNT, Runtime.getRuntime().availableProcessors())
+        );
         token = args[2];
     }
 
     @SuppressWarnings("WeakerAccess")
     public void run() throws IOException {
+        Strategy strategy = null;
+        MoveWatchdog moveWatchdog = null;
+
         try {
             remoteProcessClient.writeTokenMessage(token);
             remoteProcessClient.writeProtocolVersionMessage();
             remoteProcessClient.readTeamSizeMessage();
             Game game = remoteProcessClient.readGameContextMessage();
 
-//            Strategy strategy = new MyStrategy();
-//            Strategy strategy = new FirstStrategy();
-            Strategy strategy = new ScaleStrategy();
+//            Supplier<Strategy> strategyFactory = MyStrategy::new;
+//            Supplier<Strategy> strategyFactory = FirstStrategy::new;
+            Supplier<Strategy> strategyFactory = ScaleStrategy::new;
+
+            if (WARM_UP_BUDGET_MILLIS > 0L) {
+                JitWarmUp.Report report = new JitWarmUp(game, strategyFactory).run(
+                        TimeUnit.MILLISECONDS.toNanos(WARM_UP_BUDGET_MILLIS)
+                );
+
+                if (WARM_UP_REPORT) {
+                    System.err.println(report);
+                }
+            }
+
+            strategy = strategyFactory.get();
+            moveWatchdog = MOVE_DEADLINE_MILLIS > 0L
+                    ? new MoveWatchdog(strategy, TimeUnit.MILLISECONDS.toNanos(MOVE_DEADLINE_MILLIS))
+                    : null;
 
             PlayerContext playerContext;
 
@@ -35,12 +81,26 @@ public final class Runner {
                     break;
                 }
 
-                Move move = new Move();
-                strategy.move(player, playerContext.getWorld(), game, move);
+                Move move;
+
+                if (moveWatchdog == null) {
+                    move = new Move();
+                    strategy.move(player, playerContext.getWorld(), game, move);
+                } else {
+                    move = moveWatchdog.move(player, playerContext.getWorld(), game);
+                }
 
                 remoteProcessClient.writeMoveMessage(move);
             }
         } finally {
+            if (moveWatchdog != null) {
+                moveWatchdog.close();
+            }
+
+            if (strategy instanceof Closeable) {
+                ((Closeable) strategy).close();
+            }
+
             remoteProcessClient.close();
         }
     }
@@ -0,0 +1,38 @@
+import java.util.BitSet;
+
+/**
+ * Отслеживание текущего выделения по флагу {@code selected} новой и изменившейся техники.
+ * <p>
+ * Позволяет не тратить действие на {@code ActionType.CLEAR_AND_SELECT}, если нужная техника уже выделена и ничего
+ * лишнего не выделено. Выделение хранится битовым множеством идентификаторов техники, поэтому ни обновление, ни
+ * проверка не упаковывают идентификаторы.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class SelectionTracker {
+    private final BitSet selectedVehicleIds = new BitSet();
+
+    /**
+     * Актуализирует выделение. Должен вызываться для каждой новой и каждой изменившейся техники.
+     */
+    public void accept(long vehicleId, boolean selected) {
+        selectedVehicleIds.set((int) vehicleId, selected);
+    }
+
+    /**
+     * Убирает уничтоженную технику из выделения.
+     */
+    public void remove(long vehicleId) {
+        selectedVehicleIds.clear((int) vehicleId);
+    }
+
+    /**
+     * @return Возвращает {@code true}, если и только если выделена в точности указанная техника.
+     */
+    public boolean isSelectedExactly(BitSet vehicleIds) {
+        return !vehicleIds.isEmpty() && selectedVehicleIds.equals(vehicleIds);
+    }
+
+    public int getSelectedCount() {
+        return selectedVehicleIds.cardinality();
+    }
+}
@@ -0,0 +1,176 @@
+import model.VehicleType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Поиск точек назначения для атакующих формаций, уточняемых в фоне ({@link BackgroundPlanner}).
+ * <p>
+ * На новом снимке предыдущий план не строится заново, а продолжает уточняться: его точки назначения переоцениваются
+ * на новом снимке вместе с центрами техники противника каждого типа, а шаг поиска лишь удваивается (не превышая
+ * {@code initialStep}), чтобы успевать за перемещением техники. Каждый следующий шаг на том же снимке оценивает
+ * восемь точек вокруг лучшей найденной точки для каждой формации с вдвое меньшим шагом, пока шаг не станет меньше
+ * {@code minStep}. С начального шага поиск начинается только при отсутствии плана.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class TargetRefiner implements BackgroundPlanner.Refiner<TargetRefiner.Plan> {
+    private static final int TYPE_COUNT = VehicleType.values().length;
+    private static final double[] DIRECTION_XS = {1.0D, 0.7071D, 0.0D, -0.7071D, -1.0D, -0.7071D, 0.0D, 0.7071D};
+    private static final double[] DIRECTION_YS = {0.0D, 0.7071D, 1.0D, 0.7071D, 0.0D, -0.7071D, -1.0D, -0.7071D};
+
+    private final ParallelMoveEvaluator evaluator;
+    private final VehicleType[] vehicleTypes;
+    private final double width;
+    private final double height;
+    private final double initialStep;
+    private final double minStep;
+
+    /**
+     * @param vehicleTypes Типы наших формаций, для которых ищутся точки назначения.
+     */
+    public TargetRefiner(ParallelMoveEvaluator evaluator, VehicleType[] vehicleTypes, double width, double height,
+                         double initialStep, double minStep) {
+        this.evaluator = evaluator;
+        this.vehicleTypes = vehicleTypes.clone();
+        this.width = width;
+        this.height = height;
+        this.initialStep = initialStep;
+        this.minStep = minStep;
+    }
+
+    @Override
+    public Plan refine(VehicleSnapshot snapshot, Plan plan) {
+        boolean fresh = plan == null || plan.tickIndex != snapshot.getTickIndex();
+        if (!fresh && plan.step < minStep) {
+            return plan;
+        }
+
+        List<ParallelMoveEvaluator.Candidate> candidates = new ArrayList<>();
+
+        if (fresh) {
+            double[] enemyXByType = new double[TYPE_COUNT];
+            double[] enemyYByType = new double[TYPE_COUNT];
+            int[] enemyCountByType = new int[TYPE_COUNT];
+
+            for (int index = 0; index < snapshot.getIndexCount(); ++index) {
+                if (snapshot.isPresent(index) && !snapshot.isAlly(index)) {
+                    int type = snapshot.getTypeOrdinal(index);
+                    enemyXByType[type] += snapshot.getX(index);
+                    enemyYByType[type] += snapshot.getY(index);
+                    ++enemyCountByType[type];
+                }
+            }
+
+            for (VehicleType vehicleType : vehicleTypes) {
+                for (int type = 0; type < TYPE_COUNT; ++type) {
+                    if (enemyCountByType[type] > 0) {
+                        addCandidate(candidates, vehicleType, enemyXByType[type] / enemyCountByType[type],
+                                enemyYByType[type] / enemyCountByType[type]);
+                    }
+                }
+
+                if (plan != null && plan.hasTarget(vehicleType)) {
+                    addCandidate(candidates, vehicleType, plan.getTargetX(vehicleType), plan.getTargetY(vehicleType));
+                }
+            }
+        } else {
+            for (VehicleType vehicleType : vehicleTypes) {
+                if (!plan.hasTarget(vehicleType)) {
+                    continue;
+                }
+
+                for (int direction = 0; direction < DIRECTION_XS.length; ++direction) {
+                    addCandidate(
+                            candidates, vehicleType,
+                            plan.getTargetX(vehicleType) + DIRECTION_XS[direction] * plan.step,
+                            plan.getTargetY(vehicleType) + DIRECTION_YS[direction] * plan.step
+                    );
+                }
+            }
+        }
+
+        double[] scores = evaluator.score(snapshot, candidates);
+
+        double[] xByType = fresh ? new double[TYPE_COUNT] : plan.xByType.clone();
+        double[] yByType = fresh ? new double[TYPE_COUNT] : plan.yByType.clone();
+        double[] scoreByType;
+
+        if (fresh) {
+            scoreByType = new double[TYPE_COUNT];
+            Arrays.fill(scoreByType, Double.NEGATIVE_INFINITY);
+        } else {
+            scoreByType = plan.scoreByType.clone();
+        }
+
+        for (int i = 0; i < scores.length; ++i) {
+            ParallelMoveEvaluator.Candidate candidate = candidates.get(i);
+            int type = candidate.getVehicleType().ordinal();
+
+            if (scores[i] > scoreByType[type]) {
+                xByType[type] = candidate.getX();
+                yByType[type] = candidate.getY();
+                scoreByType[type] = scores[i];
+            }
+        }
+
+        return new Plan(snapshot.getTickIndex(), getNextStep(plan, fresh), xByType, yByType, scoreByType);
+    }
+
+    /**
+     * @return Возвращает шаг следующего уточнения: начальный, если плана нет, удвоенный шаг плана при переходе на
+     * новый снимок и половину шага плана на том же снимке.
+     */
+    private double getNextStep(Plan plan, boolean fresh) {
+        if (plan == null) {
+            return initialStep;
+        }
+
+        return fresh ? Math.min(initialStep, 2.0D * Math.max(minStep, plan.step)) : plan.step / 2.0D;
+    }
+
+    private void addCandidate(List<ParallelMoveEvaluator.Candidate> candidates, VehicleType vehicleType, double x,
+                              double y) {
+        candidates.add(new ParallelMoveEvaluator.Candidate(
+                vehicleType, Math.max(0.0D, Math.min(width, x)), Math.max(0.0D, Math.min(height, y))
+        ));
+    }
+
+    /**
+     * Неизменяемый план: лучшая найденная точка назначения для каждой формации.
+     */
+    public static final class Plan {
+        private final int tickIndex;
+        private final double step;
+        private final double[] xByType;
+        private final double[] yByType;
+        private final double[] scoreByType;
+
+        private Plan(int tickIndex, double step, double[] xByType, double[] yByType, double[] scoreByType) {
+            this.tickIndex = tickIndex;
+            this.step = step;
+            this.xByType = xByType;
+            this.yByType = yByType;
+            this.scoreByType = scoreByType;
+        }
+
+        /**
+         * @return Возвращает тик снимка, на котором построен план.
+         */
+        public int getTickIndex() {
+            return tickIndex;
+        }
+
+        public boolean hasTarget(VehicleType vehicleType) {
+            return scoreByType[vehicleType.ordinal()] > Double.NEGATIVE_INFINITY;
+        }
+
+        public double getTargetX(VehicleType vehicleType) {
+            return xByType[vehicleType.ordinal()];
+        }
+
+        public double getTargetY(VehicleType vehicleType) {
+            return yByType[vehicleType.ordinal()];
+        }
+    }
+}
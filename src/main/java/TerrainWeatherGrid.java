@@ -0,0 +1,124 @@
+import model.Game;
+import model.TerrainType;
+import model.WeatherType;
+import model.World;
+
+/**
+ * Карта местности и погоды в виде одного плоского массива байтов.
+ * <p>
+ * Клетка ({@code x}, {@code y}) карты имеет индекс {@code x * rowCount + y} (тот же порядок, что и у
+ * {@link World#getTerrainByCellXY()}). Для каждой клетки хранится один байт --- код сочетания местности и погоды
+ * {@code terrain * WEATHER_COUNT + weather}. Множители скорости, обзора и скрытности для наземной и воздушной техники
+ * вычисляются один раз для каждого из кодов, поэтому получение любой характеристики клетки --- это два обращения к
+ * массивам без разыменования объектов.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class TerrainWeatherGrid {
+    private static final TerrainType[] TERRAIN_TYPES = TerrainType.values();
+    private static final WeatherType[] WEATHER_TYPES = WeatherType.values();
+    private static final int WEATHER_COUNT = WEATHER_TYPES.length;
+    private static final int CODE_COUNT = TERRAIN_TYPES.length * WEATHER_COUNT;
+
+    private final int columnCount;
+    private final int rowCount;
+    private final double cellWidth;
+    private final double cellHeight;
+    private final byte[] codeByCell;
+
+    private final double[] groundSpeedFactorByCode = new double[CODE_COUNT];
+    private final double[] aerialSpeedFactorByCode = new double[CODE_COUNT];
+    private final double[] groundVisionFactorByCode = new double[CODE_COUNT];
+    private final double[] aerialVisionFactorByCode = new double[CODE_COUNT];
+    private final double[] groundStealthFactorByCode = new double[CODE_COUNT];
+    private final double[] aerialStealthFactorByCode = new double[CODE_COUNT];
+
+    public TerrainWeatherGrid(Game game, VehicleTypeStats vehicleTypeStats, World world) {
+        columnCount = game.getTerrainWeatherMapColumnCount();
+        rowCount = game.getTerrainWeatherMapRowCount();
+        cellWidth = world.getWidth() / columnCount;
+        cellHeight = world.getHeight() / rowCount;
+        codeByCell = new byte[columnCount * rowCount];
+
+        TerrainType[][] terrainByCellXY = world.getTerrainByCellXY();
+        WeatherType[][] weatherByCellXY = world.getWeatherByCellXY();
+
+        for (int x = 0; x < columnCount; ++x) {
+            for (int y = 0; y < rowCount; ++y) {
+                codeByCell[x * rowCount + y] = (byte) (
+                        terrainByCellXY[x][y].ordinal() * WEATHER_COUNT + weatherByCellXY[x][y].ordinal()
+                );
+            }
+        }
+
+        for (int code = 0; code < CODE_COUNT; ++code) {
+            TerrainType terrainType = TERRAIN_TYPES[code / WEATHER_COUNT];
+            WeatherType weatherType = WEATHER_TYPES[code % WEATHER_COUNT];
+
+            groundSpeedFactorByCode[code] = vehicleTypeStats.getSpeedFactor(terrainType);
+            aerialSpeedFactorByCode[code] = vehicleTypeStats.getSpeedFactor(weatherType);
+            groundVisionFactorByCode[code] = vehicleTypeStats.getVisionFactor(terrainType);
+            aerialVisionFactorByCode[code] = vehicleTypeStats.getVisionFactor(weatherType);
+            groundStealthFactorByCode[code] = vehicleTypeStats.getStealthFactor(terrainType);
+            aerialStealthFactorByCode[code] = vehicleTypeStats.getStealthFactor(weatherType);
+        }
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getCellCount() {
+        return codeByCell.length;
+    }
+
+    public double getCellWidth() {
+        return cellWidth;
+    }
+
+    public double getCellHeight() {
+        return cellHeight;
+    }
+
+    /**
+     * @return Возвращает индекс клетки карты, содержащей точку ({@code x}, {@code y}). Точки за пределами карты
+     * относятся к ближайшей крайней клетке.
+     */
+    public int cellAt(double x, double y) {
+        int cellX = Math.max(0, Math.min(columnCount - 1, (int) (x / cellWidth)));
+        int cellY = Math.max(0, Math.min(rowCount - 1, (int) (y / cellHeight)));
+        return cellX * rowCount + cellY;
+    }
+
+    public TerrainType getTerrainType(int cell) {
+        return TERRAIN_TYPES[codeByCell[cell] / WEATHER_COUNT];
+    }
+
+    public WeatherType getWeatherType(int cell) {
+        return WEATHER_TYPES[codeByCell[cell] % WEATHER_COUNT];
+    }
+
+    /**
+     * @return Возвращает множитель скорости местности (для наземной техники) или погоды (для воздушной) в клетке.
+     */
+    public double getSpeedFactor(int cell, boolean aerial) {
+        return (aerial ? aerialSpeedFactorByCode : groundSpeedFactorByCode)[codeByCell[cell]];
+    }
+
+    /**
+     * @return Возвращает множитель обзора местности (для наземной техники) или погоды (для воздушной) в клетке.
+     */
+    public double getVisionFactor(int cell, boolean aerial) {
+        return (aerial ? aerialVisionFactorByCode : groundVisionFactorByCode)[codeByCell[cell]];
+    }
+
+    /**
+     * @return Возвращает множитель скрытности местности (для наземной техники) или погоды (для воздушной) в клетке.
+     */
+    public double getStealthFactor(int cell, boolean aerial) {
+        return (aerial ? aerialStealthFactorByCode : groundStealthFactorByCode)[codeByCell[cell]];
+    }
+}
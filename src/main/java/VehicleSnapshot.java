@@ -0,0 +1,191 @@
+import java.util.Arrays;
+
+/**
+ * Неизменяемый снимок состояния всей техники на момент одного тика.
+ * <p>
+ * Данные техники хранятся в блоках фиксированного размера из примитивных массивов и индексируются идентификатором
+ * техники (идентификаторы выдаются симулятором последовательно, начиная с единицы). Снимки строятся
+ * {@link Builder}'ом, который копирует блок только при первом изменении после построения предыдущего снимка, поэтому
+ * неизменившиеся блоки разделяются между снимками соседних тиков, а построение снимка стоит O(изменившейся техники)
+ * плюс копирование массива ссылок на блоки. Снимок можно без синхронизации читать из нескольких потоков.
+ * <p>
+ * Характеристики атаки и защиты не зависят от конкретной техники, поэтому берутся из {@link VehicleTypeStats}.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class VehicleSnapshot {
+    private static final int BLOCK_SHIFT = 6;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+    private final int tickIndex;
+    private final int vehicleCount;
+    private final Block[] blocks;
+    private final VehicleTypeStats vehicleTypeStats;
+
+    private VehicleSnapshot(Builder builder, int tickIndex) {
+        this.tickIndex = tickIndex;
+        vehicleCount = builder.vehicleCount;
+        blocks = Arrays.copyOf(builder.blocks, builder.blocks.length);
+        vehicleTypeStats = builder.vehicleTypeStats;
+    }
+
+    public int getTickIndex() {
+        return tickIndex;
+    }
+
+    public int getVehicleCount() {
+        return vehicleCount;
+    }
+
+    /**
+     * @return Возвращает верхнюю границу индексов техники. Индекс техники совпадает с её идентификатором, часть
+     * индексов может быть не занята (см. {@link #isPresent(int)}).
+     */
+    public int getIndexCount() {
+        return blocks.length << BLOCK_SHIFT;
+    }
+
+    public boolean isPresent(int index) {
+        Block block = blocks[index >> BLOCK_SHIFT];
+        return block != null && block.presents[index & BLOCK_MASK];
+    }
+
+    public long getId(int index) {
+        return index;
+    }
+
+    public double getX(int index) {
+        return blocks[index >> BLOCK_SHIFT].xs[index & BLOCK_MASK];
+    }
+
+    public double getY(int index) {
+        return blocks[index >> BLOCK_SHIFT].ys[index & BLOCK_MASK];
+    }
+
+    public int getDurability(int index) {
+        return blocks[index >> BLOCK_SHIFT].durabilities[index & BLOCK_MASK];
+    }
+
+    public int getTypeOrdinal(int index) {
+        return blocks[index >> BLOCK_SHIFT].typeOrdinals[index & BLOCK_MASK];
+    }
+
+    public boolean isAlly(int index) {
+        return blocks[index >> BLOCK_SHIFT].allies[index & BLOCK_MASK];
+    }
+
+    /**
+     * @return Возвращает урон, наносимый за одну атаку техникой типа {@code attackerType} технике типа
+     * {@code defenderType} с учётом защиты.
+     */
+    public int getDamage(int attackerType, int defenderType) {
+        return vehicleTypeStats.getDamage(attackerType, defenderType);
+    }
+
+    private static final class Block {
+        private final double[] xs;
+        private final double[] ys;
+        private final int[] durabilities;
+        private final int[] typeOrdinals;
+        private final boolean[] allies;
+        private final boolean[] presents;
+
+        private Block() {
+            xs = new double[BLOCK_SIZE];
+            ys = new double[BLOCK_SIZE];
+            durabilities = new int[BLOCK_SIZE];
+            typeOrdinals = new int[BLOCK_SIZE];
+            allies = new boolean[BLOCK_SIZE];
+            presents = new boolean[BLOCK_SIZE];
+        }
+
+        private Block(Block block) {
+            xs = block.xs.clone();
+            ys = block.ys.clone();
+            durabilities = block.durabilities.clone();
+            typeOrdinals = block.typeOrdinals.clone();
+            allies = block.allies.clone();
+            presents = block.presents.clone();
+        }
+    }
+
+    /**
+     * Построитель снимков. Актуализируется новой, изменившейся и уничтоженной техникой каждого тика и используется
+     * только из потока стратегии.
+     */
+    public static final class Builder {
+        private final long myPlayerId;
+        private final VehicleTypeStats vehicleTypeStats;
+
+        private Block[] blocks = new Block[0];
+        private boolean[] ownedByBlock = new boolean[0];
+        private int vehicleCount;
+
+        public Builder(long myPlayerId, VehicleTypeStats vehicleTypeStats) {
+            this.myPlayerId = myPlayerId;
+            this.vehicleTypeStats = vehicleTypeStats;
+        }
+
+        /**
+         * Актуализирует состояние техники. Должен вызываться для каждой новой и каждой изменившейся техники.
+         */
+        public void accept(long vehicleId, long playerId, int typeOrdinal, double x, double y, int durability) {
+            int index = (int) vehicleId;
+            Block block = getOwnedBlock(index);
+            int offset = index & BLOCK_MASK;
+
+            if (!block.presents[offset]) {
+                block.presents[offset] = true;
+                ++vehicleCount;
+            }
+
+            block.xs[offset] = x;
+            block.ys[offset] = y;
+            block.durabilities[offset] = durability;
+            block.typeOrdinals[offset] = typeOrdinal;
+            block.allies[offset] = playerId == myPlayerId;
+        }
+
+        /**
+         * Убирает уничтоженную технику.
+         */
+        public void remove(long vehicleId) {
+            int index = (int) vehicleId;
+            int blockIndex = index >> BLOCK_SHIFT;
+
+            if (blockIndex >= blocks.length || blocks[blockIndex] == null
+                    || !blocks[blockIndex].presents[index & BLOCK_MASK]) {
+                return;
+            }
+
+            getOwnedBlock(index).presents[index & BLOCK_MASK] = false;
+            --vehicleCount;
+        }
+
+        /**
+         * @return Возвращает снимок текущего состояния. Все блоки становятся общими с этим снимком и будут
+         * скопированы при следующем изменении.
+         */
+        public VehicleSnapshot build(int tickIndex) {
+            Arrays.fill(ownedByBlock, false);
+            return new VehicleSnapshot(this, tickIndex);
+        }
+
+        private Block getOwnedBlock(int index) {
+            int blockIndex = index >> BLOCK_SHIFT;
+
+            if (blockIndex >= blocks.length) {
+                int blockCount = Math.max(blockIndex + 1, 2 * blocks.length);
+                blocks = Arrays.copyOf(blocks, blockCount);
+                ownedByBlock = Arrays.copyOf(ownedByBlock, blockCount);
+            }
+
+            if (!ownedByBlock[blockIndex]) {
+                blocks[blockIndex] = blocks[blockIndex] == null ? new Block() : new Block(blocks[blockIndex]);
+                ownedByBlock[blockIndex] = true;
+            }
+
+            return blocks[blockIndex];
+        }
+    }
+}
@@ -0,0 +1,197 @@
+import model.Vehicle;
+import model.VehicleType;
+import model.VehicleUpdate;
+
+import java.util.Arrays;
+
+/**
+ * Компактное хранилище всей известной техники.
+ * <p>
+ * Данные хранятся в примитивных массивах, индексированных идентификатором техники (идентификаторы выдаются
+ * симулятором последовательно, начиная с единицы). Неизменяемые характеристики, общие для типа (радиус, скорость,
+ * дальности, урон, защита, перезарядка), хранятся один раз на тип, неизменяемые характеристики конкретной техники
+ * (игрок, тип) --- один раз на технику, а обновление ({@link #update(VehicleUpdate)}) меняет только позицию,
+ * прочность, перезарядку атаки, выделение и маску групп, ничего не создавая.
+ * <p>
+ * Код стратегии обходит технику по идентификаторам ({@link #nextVehicleId(long)}) и читает поля через примитивные
+ * методы доступа. Декодированные объекты {@link Vehicle} не хранятся (кроме одного прототипа на тип), поэтому
+ * неподвижная и неизменная техника не удерживает их в памяти всю игру.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class VehicleTable {
+    private static final int INITIAL_VEHICLE_CAPACITY = 1024;
+    private static final int TYPE_COUNT = VehicleType.values().length;
+    private static final VehicleType[] VEHICLE_TYPES = VehicleType.values();
+
+    private final Vehicle[] prototypeByType = new Vehicle[TYPE_COUNT];
+
+    private int vehicleCount;
+    private int maxVehicleIndex;
+
+    private boolean[] presents;
+    private long[] playerIds;
+    private byte[] typeOrdinals;
+    private double[] xs;
+    private double[] ys;
+    private int[] durabilities;
+    private int[] remainingAttackCooldownTicks;
+    private boolean[] selections;
+    private long[] lowGroupMasks;
+    private long[] highGroupMasks;
+
+    public VehicleTable() {
+        allocate(INITIAL_VEHICLE_CAPACITY);
+    }
+
+    /**
+     * Добавляет новую технику.
+     */
+    public void add(Vehicle vehicle) {
+        int index = (int) vehicle.getId();
+        if (index >= presents.length) {
+            allocate(Math.max(index + 1, 2 * presents.length));
+        }
+
+        int type = vehicle.getType().ordinal();
+        if (prototypeByType[type] == null) {
+            prototypeByType[type] = vehicle;
+        }
+
+        if (!presents[index]) {
+            presents[index] = true;
+            ++vehicleCount;
+            maxVehicleIndex = Math.max(maxVehicleIndex, index);
+        }
+
+        playerIds[index] = vehicle.getPlayerId();
+        typeOrdinals[index] = (byte) type;
+        xs[index] = vehicle.getX();
+        ys[index] = vehicle.getY();
+        durabilities[index] = vehicle.getDurability();
+        remainingAttackCooldownTicks[index] = vehicle.getRemainingAttackCooldownTicks();
+        selections[index] = vehicle.isSelected();
+        lowGroupMasks[index] = vehicle.getGroupMask(0);
+        highGroupMasks[index] = vehicle.getGroupMask(1);
+    }
+
+    /**
+     * Применяет обновление к известной технике.
+     */
+    public void update(VehicleUpdate vehicleUpdate) {
+        int index = (int) vehicleUpdate.getId();
+
+        xs[index] = vehicleUpdate.getX();
+        ys[index] = vehicleUpdate.getY();
+        durabilities[index] = vehicleUpdate.getDurability();
+        remainingAttackCooldownTicks[index] = vehicleUpdate.getRemainingAttackCooldownTicks();
+        selections[index] = vehicleUpdate.isSelected();
+        lowGroupMasks[index] = vehicleUpdate.getGroupMask(0);
+        highGroupMasks[index] = vehicleUpdate.getGroupMask(1);
+    }
+
+    /**
+     * Убирает уничтоженную технику.
+     */
+    public void remove(long vehicleId) {
+        int index = (int) vehicleId;
+        if (index < presents.length && presents[index]) {
+            presents[index] = false;
+            lowGroupMasks[index] = 0L;
+            highGroupMasks[index] = 0L;
+            --vehicleCount;
+        }
+    }
+
+    public boolean contains(long vehicleId) {
+        return vehicleId >= 0L && vehicleId < presents.length && presents[(int) vehicleId];
+    }
+
+    public int size() {
+        return vehicleCount;
+    }
+
+    /**
+     * @return Возвращает наименьший идентификатор известной техники, не меньший {@code fromVehicleId}, или {@code -1},
+     * если такой техники нет. Обход всей техники без создания объектов:
+     * {@code for (long id = table.nextVehicleId(0L); id >= 0L; id = table.nextVehicleId(id + 1L))}.
+     */
+    public long nextVehicleId(long fromVehicleId) {
+        for (int index = (int) Math.max(0L, fromVehicleId); index <= maxVehicleIndex; ++index) {
+            if (presents[index]) {
+                return index;
+            }
+        }
+
+        return -1L;
+    }
+
+    public long getPlayerId(long vehicleId) {
+        return playerIds[(int) vehicleId];
+    }
+
+    public VehicleType getType(long vehicleId) {
+        return VEHICLE_TYPES[typeOrdinals[(int) vehicleId]];
+    }
+
+    public int getTypeOrdinal(long vehicleId) {
+        return typeOrdinals[(int) vehicleId];
+    }
+
+    public double getX(long vehicleId) {
+        return xs[(int) vehicleId];
+    }
+
+    public double getY(long vehicleId) {
+        return ys[(int) vehicleId];
+    }
+
+    public int getDurability(long vehicleId) {
+        return durabilities[(int) vehicleId];
+    }
+
+    public int getRemainingAttackCooldownTicks(long vehicleId) {
+        return remainingAttackCooldownTicks[(int) vehicleId];
+    }
+
+    public boolean isSelected(long vehicleId) {
+        return selections[(int) vehicleId];
+    }
+
+    /**
+     * @return Возвращает слово {@code word} маски групп техники (см. {@link Vehicle#getGroupMask(int)}).
+     */
+    public long getGroupMask(long vehicleId, int word) {
+        return (word == 0 ? lowGroupMasks : highGroupMasks)[(int) vehicleId];
+    }
+
+    public double getRadius(long vehicleId) {
+        return prototypeByType[typeOrdinals[(int) vehicleId]].getRadius();
+    }
+
+    public double getMaxSpeed(long vehicleId) {
+        return prototypeByType[typeOrdinals[(int) vehicleId]].getMaxSpeed();
+    }
+
+    public boolean isAerial(long vehicleId) {
+        return prototypeByType[typeOrdinals[(int) vehicleId]].isAerial();
+    }
+
+    public double getVisionRange(long vehicleId) {
+        return prototypeByType[typeOrdinals[(int) vehicleId]].getVisionRange();
+    }
+
+    private void allocate(int capacity) {
+        presents = presents == null ? new boolean[capacity] : Arrays.copyOf(presents, capacity);
+        playerIds = playerIds == null ? new long[capacity] : Arrays.copyOf(playerIds, capacity);
+        typeOrdinals = typeOrdinals == null ? new byte[capacity] : Arrays.copyOf(typeOrdinals, capacity);
+        xs = xs == null ? new double[capacity] : Arrays.copyOf(xs, capacity);
+        ys = ys == null ? new double[capacity] : Arrays.copyOf(ys, capacity);
+        durabilities = durabilities == null ? new int[capacity] : Arrays.copyOf(durabilities, capacity);
+        remainingAttackCooldownTicks = remainingAttackCooldownTicks == null
+                ? new int[capacity]
+                : Arrays.copyOf(remainingAttackCooldownTicks, capacity);
+        selections = selections == null ? new boolean[capacity] : Arrays.copyOf(selections, capacity);
+        lowGroupMasks = lowGroupMasks == null ? new long[capacity] : Arrays.copyOf(lowGroupMasks, capacity);
+        highGroupMasks = highGroupMasks == null ? new long[capacity] : Arrays.copyOf(highGroupMasks, capacity);
+    }
+}
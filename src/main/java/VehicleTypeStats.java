@@ -0,0 +1,231 @@
+import model.Game;
+import model.TerrainType;
+import model.VehicleType;
+import model.WeatherType;
+
+/**
+ * Характеристики типов техники, местности и погоды, собранные из констант {@link Game} в примитивные массивы.
+ * <p>
+ * Характеристики техники индексируются {@code VehicleType.ordinal()}, коэффициенты местности и погоды ---
+ * {@code TerrainType.ordinal()} и {@code WeatherType.ordinal()}. Урон с учётом защиты для каждой пары типов вычисляется
+ * один раз при построении. Ветвление по типу остаётся только в конструкторе, поэтому во внутренних циклах достаточно
+ * обращения к массиву.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class VehicleTypeStats {
+    private static final int TYPE_COUNT = VehicleType.values().length;
+    private static final int TERRAIN_COUNT = TerrainType.values().length;
+    private static final int WEATHER_COUNT = WeatherType.values().length;
+
+    private final int[] durabilityByType = new int[TYPE_COUNT];
+    private final double[] speedByType = new double[TYPE_COUNT];
+    private final double[] visionRangeByType = new double[TYPE_COUNT];
+    private final double[] groundAttackRangeByType = new double[TYPE_COUNT];
+    private final double[] aerialAttackRangeByType = new double[TYPE_COUNT];
+    private final int[] groundDamageByType = new int[TYPE_COUNT];
+    private final int[] aerialDamageByType = new int[TYPE_COUNT];
+    private final int[] groundDefenceByType = new int[TYPE_COUNT];
+    private final int[] aerialDefenceByType = new int[TYPE_COUNT];
+    private final int[] attackCooldownTicksByType = new int[TYPE_COUNT];
+    private final int[] productionCostByType = new int[TYPE_COUNT];
+    private final boolean[] aerialByType = new boolean[TYPE_COUNT];
+    private final int[] damageByAttackerAndDefenderType = new int[TYPE_COUNT * TYPE_COUNT];
+
+    private final double[] speedFactorByTerrain = new double[TERRAIN_COUNT];
+    private final double[] visionFactorByTerrain = new double[TERRAIN_COUNT];
+    private final double[] stealthFactorByTerrain = new double[TERRAIN_COUNT];
+
+    private final double[] speedFactorByWeather = new double[WEATHER_COUNT];
+    private final double[] visionFactorByWeather = new double[WEATHER_COUNT];
+    private final double[] stealthFactorByWeather = new double[WEATHER_COUNT];
+
+    public VehicleTypeStats(Game game) {
+        for (VehicleType vehicleType : VehicleType.values()) {
+            int type = vehicleType.ordinal();
+
+            switch (vehicleType) {
+                case ARRV:
+                    durabilityByType[type] = game.getArrvDurability();
+                    speedByType[type] = game.getArrvSpeed();
+                    visionRangeByType[type] = game.getArrvVisionRange();
+                    groundDefenceByType[type] = game.getArrvGroundDefence();
+                    aerialDefenceByType[type] = game.getArrvAerialDefence();
+                    productionCostByType[type] = game.getArrvProductionCost();
+                    break;
+                case FIGHTER:
+                    durabilityByType[type] = game.getFighterDurability();
+                    speedByType[type] = game.getFighterSpeed();
+                    visionRangeByType[type] = game.getFighterVisionRange();
+                    groundAttackRangeByType[type] = game.getFighterGroundAttackRange();
+                    aerialAttackRangeByType[type] = game.getFighterAerialAttackRange();
+                    groundDamageByType[type] = game.getFighterGroundDamage();
+                    aerialDamageByType[type] = game.getFighterAerialDamage();
+                    groundDefenceByType[type] = game.getFighterGroundDefence();
+                    aerialDefenceByType[type] = game.getFighterAerialDefence();
+                    attackCooldownTicksByType[type] = game.getFighterAttackCooldownTicks();
+                    productionCostByType[type] = game.getFighterProductionCost();
+                    aerialByType[type] = true;
+                    break;
+                case HELICOPTER:
+                    durabilityByType[type] = game.getHelicopterDurability();
+                    speedByType[type] = game.getHelicopterSpeed();
+                    visionRangeByType[type] = game.getHelicopterVisionRange();
+                    groundAttackRangeByType[type] = game.getHelicopterGroundAttackRange();
+                    aerialAttackRangeByType[type] = game.getHelicopterAerialAttackRange();
+                    groundDamageByType[type] = game.getHelicopterGroundDamage();
+                    aerialDamageByType[type] = game.getHelicopterAerialDamage();
+                    groundDefenceByType[type] = game.getHelicopterGroundDefence();
+                    aerialDefenceByType[type] = game.getHelicopterAerialDefence();
+                    attackCooldownTicksByType[type] = game.getHelicopterAttackCooldownTicks();
+                    productionCostByType[type] = game.getHelicopterProductionCost();
+                    aerialByType[type] = true;
+                    break;
+                case IFV:
+                    durabilityByType[type] = game.getIfvDurability();
+                    speedByType[type] = game.getIfvSpeed();
+                    visionRangeByType[type] = game.getIfvVisionRange();
+                    groundAttackRangeByType[type] = game.getIfvGroundAttackRange();
+                    aerialAttackRangeByType[type] = game.getIfvAerialAttackRange();
+                    groundDamageByType[type] = game.getIfvGroundDamage();
+                    aerialDamageByType[type] = game.getIfvAerialDamage();
+                    groundDefenceByType[type] = game.getIfvGroundDefence();
+                    aerialDefenceByType[type] = game.getIfvAerialDefence();
+                    attackCooldownTicksByType[type] = game.getIfvAttackCooldownTicks();
+                    productionCostByType[type] = game.getIfvProductionCost();
+                    break;
+                case TANK:
+                    durabilityByType[type] = game.getTankDurability();
+                    speedByType[type] = game.getTankSpeed();
+                    visionRangeByType[type] = game.getTankVisionRange();
+                    groundAttackRangeByType[type] = game.getTankGroundAttackRange();
+                    aerialAttackRangeByType[type] = game.getTankAerialAttackRange();
+                    groundDamageByType[type] = game.getTankGroundDamage();
+                    aerialDamageByType[type] = game.getTankAerialDamage();
+                    groundDefenceByType[type] = game.getTankGroundDefence();
+                    aerialDefenceByType[type] = game.getTankAerialDefence();
+                    attackCooldownTicksByType[type] = game.getTankAttackCooldownTicks();
+                    productionCostByType[type] = game.getTankProductionCost();
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported vehicle type: " + vehicleType + '.');
+            }
+        }
+
+        for (int attackerType = 0; attackerType < TYPE_COUNT; ++attackerType) {
+            for (int defenderType = 0; defenderType < TYPE_COUNT; ++defenderType) {
+                int damage = aerialByType[defenderType]
+                        ? aerialDamageByType[attackerType]
+                        : groundDamageByType[attackerType];
+                int defence = aerialByType[attackerType]
+                        ? aerialDefenceByType[defenderType]
+                        : groundDefenceByType[defenderType];
+                int index = attackerType * TYPE_COUNT + defenderType;
+                damageByAttackerAndDefenderType[index] = Math.max(0, damage - defence);
+            }
+        }
+
+        speedFactorByTerrain[TerrainType.PLAIN.ordinal()] = game.getPlainTerrainSpeedFactor();
+        speedFactorByTerrain[TerrainType.SWAMP.ordinal()] = game.getSwampTerrainSpeedFactor();
+        speedFactorByTerrain[TerrainType.FOREST.ordinal()] = game.getForestTerrainSpeedFactor();
+
+        visionFactorByTerrain[TerrainType.PLAIN.ordinal()] = game.getPlainTerrainVisionFactor();
+        visionFactorByTerrain[TerrainType.SWAMP.ordinal()] = game.getSwampTerrainVisionFactor();
+        visionFactorByTerrain[TerrainType.FOREST.ordinal()] = game.getForestTerrainVisionFactor();
+
+        stealthFactorByTerrain[TerrainType.PLAIN.ordinal()] = game.getPlainTerrainStealthFactor();
+        stealthFactorByTerrain[TerrainType.SWAMP.ordinal()] = game.getSwampTerrainStealthFactor();
+        stealthFactorByTerrain[TerrainType.FOREST.ordinal()] = game.getForestTerrainStealthFactor();
+
+        speedFactorByWeather[WeatherType.CLEAR.ordinal()] = game.getClearWeatherSpeedFactor();
+        speedFactorByWeather[WeatherType.CLOUD.ordinal()] = game.getCloudWeatherSpeedFactor();
+        speedFactorByWeather[WeatherType.RAIN.ordinal()] = game.getRainWeatherSpeedFactor();
+
+        visionFactorByWeather[WeatherType.CLEAR.ordinal()] = game.getClearWeatherVisionFactor();
+        visionFactorByWeather[WeatherType.CLOUD.ordinal()] = game.getCloudWeatherVisionFactor();
+        visionFactorByWeather[WeatherType.RAIN.ordinal()] = game.getRainWeatherVisionFactor();
+
+        stealthFactorByWeather[WeatherType.CLEAR.ordinal()] = game.getClearWeatherStealthFactor();
+        stealthFactorByWeather[WeatherType.CLOUD.ordinal()] = game.getCloudWeatherStealthFactor();
+        stealthFactorByWeather[WeatherType.RAIN.ordinal()] = game.getRainWeatherStealthFactor();
+    }
+
+    public int getDurability(int type) {
+        return durabilityByType[type];
+    }
+
+    public double getSpeed(int type) {
+        return speedByType[type];
+    }
+
+    public double getVisionRange(int type) {
+        return visionRangeByType[type];
+    }
+
+    public double getGroundAttackRange(int type) {
+        return groundAttackRangeByType[type];
+    }
+
+    public double getAerialAttackRange(int type) {
+        return aerialAttackRangeByType[type];
+    }
+
+    public int getGroundDamage(int type) {
+        return groundDamageByType[type];
+    }
+
+    public int getAerialDamage(int type) {
+        return aerialDamageByType[type];
+    }
+
+    public int getGroundDefence(int type) {
+        return groundDefenceByType[type];
+    }
+
+    public int getAerialDefence(int type) {
+        return aerialDefenceByType[type];
+    }
+
+    public int getAttackCooldownTicks(int type) {
+        return attackCooldownTicksByType[type];
+    }
+
+    public int getProductionCost(int type) {
+        return productionCostByType[type];
+    }
+
+    public boolean isAerial(int type) {
+        return aerialByType[type];
+    }
+
+    /**
+     * @return Возвращает урон, наносимый за одну атаку техникой типа {@code attackerType} технике типа
+     * {@code defenderType} с учётом защиты.
+     */
+    public int getDamage(int attackerType, int defenderType) {
+        return damageByAttackerAndDefenderType[attackerType * TYPE_COUNT + defenderType];
+    }
+
+    public double getSpeedFactor(TerrainType terrainType) {
+        return speedFactorByTerrain[terrainType.ordinal()];
+    }
+
+    public double getVisionFactor(TerrainType terrainType) {
+        return visionFactorByTerrain[terrainType.ordinal()];
+    }
+
+    public double getStealthFactor(TerrainType terrainType) {
+        return stealthFactorByTerrain[terrainType.ordinal()];
+    }
+
+    public double getSpeedFactor(WeatherType weatherType) {
+        return speedFactorByWeather[weatherType.ordinal()];
+    }
+
+    public double getVisionFactor(WeatherType weatherType) {
+        return visionFactorByWeather[weatherType.ordinal()];
+    }
+
+    public double getStealthFactor(WeatherType weatherType) {
+        return stealthFactorByWeather[weatherType.ordinal()];
+    }
+}
@@ -0,0 +1,229 @@
+import model.Vehicle;
+import model.World;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Сетка видимости: для каждой клетки хранит, видит ли её хотя бы одна наша техника и хотя бы одна техника противника.
+ * <p>
+ * Каждая техника «покрывает» круг клеток радиусом, равным её радиусу обзора с учётом множителя местности (для
+ * наземной техники) или погоды (для воздушной) в клетке карты, где она находится. Центр круга привязан к центру
+ * клетки сетки, поэтому перемещение техники в пределах одной клетки не требует никаких пересчётов, а при переходе в
+ * другую клетку пересчитываются только клетки её старого и нового кругов.
+ * <p>
+ * Множители скрытности в клетке цели не учитываются, поэтому сетка даёт верхнюю оценку видимости. Для позиции
+ * наводчика ядерного удара это и требуется: точка удара должна находиться в пределах радиуса обзора наводчика.
+ * <p>
+ * Покрытие техники хранится в примитивных массивах, индексированных идентификатором техники, как и в
+ * {@link VehicleTable}, поэтому обработка обновлений ничего не создаёт.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class VisibilityGrid {
+    private static final int INITIAL_VEHICLE_CAPACITY = 1024;
+    private static final int NO_CELL = -1;
+
+    private final long myPlayerId;
+
+    private final double cellSize;
+    private final int columnCount;
+    private final int rowCount;
+
+    private final TerrainWeatherGrid terrainWeatherGrid;
+
+    private final int[] allyCoverageByCell;
+    private final int[] enemyCoverageByCell;
+    private final BitSet seenByAlly;
+    private final BitSet seenByEnemy;
+
+    private int[] cellByVehicleId = new int[0];
+    private int[] radiusByVehicleId = new int[0];
+    private boolean[] allyByVehicleId = new boolean[0];
+
+    private int[][] discOffsetsByRadius = new int[0][];
+
+    public VisibilityGrid(TerrainWeatherGrid terrainWeatherGrid, World world, long myPlayerId, double cellSize) {
+        this.terrainWeatherGrid = terrainWeatherGrid;
+        this.myPlayerId = myPlayerId;
+        this.cellSize = cellSize;
+
+        columnCount = (int) StrictMath.ceil(world.getWidth() / cellSize);
+        rowCount = (int) StrictMath.ceil(world.getHeight() / cellSize);
+
+        allyCoverageByCell = new int[columnCount * rowCount];
+        enemyCoverageByCell = new int[columnCount * rowCount];
+        seenByAlly = new BitSet(columnCount * rowCount);
+        seenByEnemy = new BitSet(columnCount * rowCount);
+
+        allocate(INITIAL_VEHICLE_CAPACITY);
+    }
+
+    /**
+     * Актуализирует покрытие техники. Должен вызываться для каждой новой и каждой изменившейся техники.
+     */
+    public void accept(long vehicleId, long playerId, double x, double y, double visionRange, boolean aerial) {
+        int cell = getCell(x, y);
+        int radius = (int) (getEffectiveVisionRange(x, y, visionRange, aerial) / cellSize);
+
+        int index = (int) vehicleId;
+        if (index >= cellByVehicleId.length) {
+            allocate(Math.max(index + 1, 2 * cellByVehicleId.length));
+        }
+
+        if (cellByVehicleId[index] != NO_CELL) {
+            if (cellByVehicleId[index] == cell && radiusByVehicleId[index] == radius) {
+                return;
+            }
+
+            stamp(allyByVehicleId[index], cellByVehicleId[index], radiusByVehicleId[index], -1);
+        } else {
+            allyByVehicleId[index] = playerId == myPlayerId;
+        }
+
+        cellByVehicleId[index] = cell;
+        radiusByVehicleId[index] = radius;
+        stamp(allyByVehicleId[index], cell, radius, 1);
+    }
+
+    /**
+     * Убирает покрытие уничтоженной или скрывшейся техники.
+     */
+    public void remove(long vehicleId) {
+        int index = (int) vehicleId;
+        if (index >= 0 && index < cellByVehicleId.length && cellByVehicleId[index] != NO_CELL) {
+            stamp(allyByVehicleId[index], cellByVehicleId[index], radiusByVehicleId[index], -1);
+            cellByVehicleId[index] = NO_CELL;
+        }
+    }
+
+    /**
+     * @return Возвращает радиус обзора техники с учётом местности или погоды в точке её нахождения.
+     */
+    public double getEffectiveVisionRange(Vehicle vehicle) {
+        return getEffectiveVisionRange(vehicle.getX(), vehicle.getY(), vehicle.getVisionRange(), vehicle.isAerial());
+    }
+
+    /**
+     * @return Возвращает радиус обзора техники с базовым радиусом {@code visionRange} в точке {@code (x, y)}.
+     */
+    public double getEffectiveVisionRange(double x, double y, double visionRange, boolean aerial) {
+        return visionRange * terrainWeatherGrid.getVisionFactor(terrainWeatherGrid.cellAt(x, y), aerial);
+    }
+
+    public boolean isSeenByAlly(double x, double y) {
+        return seenByAlly.get(getCell(x, y));
+    }
+
+    public boolean isSeenByEnemy(double x, double y) {
+        return seenByEnemy.get(getCell(x, y));
+    }
+
+    /**
+     * @return Возвращает множество клеток, видимых нашей техникой. Возвращаемый объект не должен изменяться.
+     */
+    public BitSet getSeenByAlly() {
+        return seenByAlly;
+    }
+
+    /**
+     * @return Возвращает множество клеток, видимых техникой противника. Возвращаемый объект не должен изменяться.
+     */
+    public BitSet getSeenByEnemy() {
+        return seenByEnemy;
+    }
+
+    public int getCell(double x, double y) {
+        int cellX = Math.max(0, Math.min(columnCount - 1, (int) (x / cellSize)));
+        int cellY = Math.max(0, Math.min(rowCount - 1, (int) (y / cellSize)));
+        return cellX * rowCount + cellY;
+    }
+
+    public double getCellCenterX(int cell) {
+        return (cell / rowCount + 0.5D) * cellSize;
+    }
+
+    public double getCellCenterY(int cell) {
+        return (cell % rowCount + 0.5D) * cellSize;
+    }
+
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    private void allocate(int capacity) {
+        int previousCapacity = cellByVehicleId.length;
+
+        cellByVehicleId = Arrays.copyOf(cellByVehicleId, capacity);
+        radiusByVehicleId = Arrays.copyOf(radiusByVehicleId, capacity);
+        allyByVehicleId = Arrays.copyOf(allyByVehicleId, capacity);
+
+        Arrays.fill(cellByVehicleId, previousCapacity, capacity, NO_CELL);
+    }
+
+    private void stamp(boolean ally, int centerCell, int radius, int delta) {
+        int[] coverageByCell = ally ? allyCoverageByCell : enemyCoverageByCell;
+        BitSet seen = ally ? seenByAlly : seenByEnemy;
+
+        int centerX = centerCell / rowCount;
+        int centerY = centerCell % rowCount;
+        int[] offsets = getDiscOffsets(radius);
+
+        for (int i = 0; i < offsets.length; i += 2) {
+            int x = centerX + offsets[i];
+            int y = centerY + offsets[i + 1];
+
+            if (x < 0 || x >= columnCount || y < 0 || y >= rowCount) {
+                continue;
+            }
+
+            int cell = x * rowCount + y;
+            int coverage = coverageByCell[cell] += delta;
+
+            if (coverage == 0) {
+                seen.clear(cell);
+            } else if (coverage == 1 && delta > 0) {
+                seen.set(cell);
+            }
+        }
+    }
+
+    /**
+     * @return Возвращает пары смещений {@code (dx, dy)} клеток, центры которых лежат в круге указанного радиуса
+     * (в клетках) с центром в центре исходной клетки.
+     */
+    private int[] getDiscOffsets(int radius) {
+        if (radius >= discOffsetsByRadius.length) {
+            discOffsetsByRadius = Arrays.copyOf(discOffsetsByRadius, radius + 1);
+        }
+
+        int[] offsets = discOffsetsByRadius[radius];
+        if (offsets != null) {
+            return offsets;
+        }
+
+        int count = 0;
+        int[] buffer = new int[2 * (2 * radius + 1) * (2 * radius + 1)];
+
+        for (int dx = -radius; dx <= radius; ++dx) {
+            for (int dy = -radius; dy <= radius; ++dy) {
+                if (dx * dx + dy * dy <= radius * radius) {
+                    buffer[count++] = dx;
+                    buffer[count++] = dy;
+                }
+            }
+        }
+
+        offsets = new int[count];
+        System.arraycopy(buffer, 0, offsets, 0, count);
+        discOffsetsByRadius[radius] = offsets;
+        return offsets;
+    }
+}
@@ -1,11 +1,19 @@
 package model;
 
-import java.util.Arrays;
-
 /**
  * Класс, определяющий технику. Содержит также все свойства круглых объектов.
  */
 public class Vehicle extends CircularUnit {
+    /**
+     * Количество 64-битных слов в маске групп.
+     */
+    public static final int GROUP_MASK_WORD_COUNT = 2;
+
+    /**
+     * Наибольший индекс группы, представимый в маске групп.
+     */
+    public static final int MAX_GROUP = GROUP_MASK_WORD_COUNT * Long.SIZE;
+
     private final long playerId;
     private final int durability;
     private final int maxDurability;
@@ -25,7 +33,8 @@ public class Vehicle extends CircularUnit {
     private final VehicleType type;
     private final boolean aerial;
     private final boolean selected;
-    private final int[] groups;
+    private final long lowGroupMask;
+    private final long highGroupMask;
 
     public Vehicle(
             long id, double x, double y, double radius, long playerId, int durability, int maxDurability,
@@ -33,6 +42,21 @@ public class Vehicle extends CircularUnit {
             double squaredGroundAttackRange, double aerialAttackRange, double squaredAerialAttackRange,
             int groundDamage, int aerialDamage, int groundDefence, int aerialDefence, int attackCooldownTicks,
             int remainingAttackCooldownTicks, VehicleType type, boolean aerial, boolean selected, int[] groups) {
+        this(
+                id, x, y, radius, playerId, durability, maxDurability, maxSpeed, visionRange, squaredVisionRange,
+                groundAttackRange, squaredGroundAttackRange, aerialAttackRange, squaredAerialAttackRange,
+                groundDamage, aerialDamage, groundDefence, aerialDefence, attackCooldownTicks,
+                remainingAttackCooldownTicks, type, aerial, selected, toGroupMask(groups, 0), toGroupMask(groups, 1)
+        );
+    }
+
+    public Vehicle(
+            long id, double x, double y, double radius, long playerId, int durability, int maxDurability,
+            double maxSpeed, double visionRange, double squaredVisionRange, double groundAttackRange,
+            double squaredGroundAttackRange, double aerialAttackRange, double squaredAerialAttackRange,
+            int groundDamage, int aerialDamage, int groundDefence, int aerialDefence, int attackCooldownTicks,
+            int remainingAttackCooldownTicks, VehicleType type, boolean aerial, boolean selected, long lowGroupMask,
+            long highGroupMask) {
         super(id, x, y, radius);
 
         this.playerId = playerId;
@@ -54,7 +78,8 @@ public class Vehicle extends CircularUnit {
         this.type = type;
         this.aerial = aerial;
         this.selected = selected;
-        this.groups = Arrays.copyOf(groups, groups.length);
+        this.lowGroupMask = lowGroupMask;
+        this.highGroupMask = highGroupMask;
     }
 
     public Vehicle(Vehicle vehicle, VehicleUpdate vehicleUpdate) {
@@ -79,9 +104,8 @@ public class Vehicle extends CircularUnit {
         this.type = vehicle.type;
         this.aerial = vehicle.aerial;
         this.selected = vehicleUpdate.isSelected();
-
-        int[] updateGroups = vehicleUpdate.getGroups();
-        this.groups = Arrays.copyOf(updateGroups, updateGroups.length);
+        this.lowGroupMask = vehicleUpdate.getGroupMask(0);
+        this.highGroupMask = vehicleUpdate.getGroupMask(1);
     }
 
     /**
@@ -230,6 +254,67 @@ public class Vehicle extends CircularUnit {
      * @return Возвращает группы, в которые входит эта техника.
      */
     public int[] getGroups() {
-        return Arrays.copyOf(groups, groups.length);
+        return toGroups(lowGroupMask, highGroupMask);
+    }
+
+    /**
+     * @return Возвращает слово {@code word} маски групп, в которые входит эта техника: группе {@code g} соответствует
+     * бит {@code 1L << (g - 1) % 64} слова {@code (g - 1) / 64}.
+     */
+    public long getGroupMask(int word) {
+        switch (word) {
+            case 0:
+                return lowGroupMask;
+            case 1:
+                return highGroupMask;
+            default:
+                throw new IllegalArgumentException("Unexpected group mask word: " + word + '.');
+        }
+    }
+
+    /**
+     * @return Возвращает {@code true} в том и только том случае, если эта техника входит в группу {@code group}.
+     */
+    public boolean isInGroup(int group) {
+        return group >= 1 && group <= MAX_GROUP && (getGroupMask((group - 1) >>> 6) & 1L << (group - 1)) != 0L;
+    }
+
+    /**
+     * @return Возвращает бит группы {@code group} в слове {@code word} маски групп или {@code 0}, если группа
+     * относится к другому слову либо в маске не представима.
+     */
+    public static long toGroupMask(int group, int word) {
+        return group >= 1 && group <= MAX_GROUP && (group - 1) >>> 6 == word ? 1L << (group - 1) : 0L;
+    }
+
+    /**
+     * @return Возвращает слово {@code word} маски групп по массиву групп.
+     */
+    public static long toGroupMask(int[] groups, int word) {
+        long groupMask = 0L;
+
+        for (int group : groups) {
+            groupMask |= toGroupMask(group, word);
+        }
+
+        return groupMask;
+    }
+
+    /**
+     * @return Возвращает массив групп по словам маски групп в порядке возрастания индексов групп.
+     */
+    public static int[] toGroups(long lowGroupMask, long highGroupMask) {
+        int[] groups = new int[Long.bitCount(lowGroupMask) + Long.bitCount(highGroupMask)];
+        int i = 0;
+
+        for (; lowGroupMask != 0L; lowGroupMask &= lowGroupMask - 1L) {
+            groups[i++] = Long.numberOfTrailingZeros(lowGroupMask) + 1;
+        }
+
+        for (; highGroupMask != 0L; highGroupMask &= highGroupMask - 1L) {
+            groups[i++] = Long.numberOfTrailingZeros(highGroupMask) + Long.SIZE + 1;
+        }
+
+        return groups;
     }
 }
@@ -1,7 +1,5 @@
 package model;
 
-import java.util.Arrays;
-
 /**
  * Класс, частично определяющий технику. Содержит уникальный идентификатор техники, а также все поля техники,
  * значения которых могут изменяться в процессе игры.
@@ -13,18 +11,29 @@ public class VehicleUpdate {
     private final int durability;
     private final int remainingAttackCooldownTicks;
     private final boolean selected;
-    private final int[] groups;
+    private final long lowGroupMask;
+    private final long highGroupMask;
 
     public VehicleUpdate(
             long id, double x, double y, int durability, int remainingAttackCooldownTicks, boolean selected,
             int[] groups) {
+        this(
+                id, x, y, durability, remainingAttackCooldownTicks, selected, Vehicle.toGroupMask(groups, 0),
+                Vehicle.toGroupMask(groups, 1)
+        );
+    }
+
+    public VehicleUpdate(
+            long id, double x, double y, int durability, int remainingAttackCooldownTicks, boolean selected,
+            long lowGroupMask, long highGroupMask) {
         this.id = id;
         this.x = x;
         this.y = y;
         this.durability = durability;
         this.remainingAttackCooldownTicks = remainingAttackCooldownTicks;
         this.selected = selected;
-        this.groups = Arrays.copyOf(groups, groups.length);
+        this.lowGroupMask = lowGroupMask;
+        this.highGroupMask = highGroupMask;
     }
 
     /**
@@ -74,6 +83,21 @@ public class VehicleUpdate {
      * @return Возвращает группы, в которые входит эта техника.
      */
     public int[] getGroups() {
-        return Arrays.copyOf(groups, groups.length);
+        return Vehicle.toGroups(lowGroupMask, highGroupMask);
+    }
+
+    /**
+     * @return Возвращает слово {@code word} маски групп, в которые входит эта техника
+     * (см. {@link Vehicle#getGroupMask(int)}).
+     */
+    public long getGroupMask(int word) {
+        switch (word) {
+            case 0:
+                return lowGroupMask;
+            case 1:
+                return highGroupMask;
+            default:
+                throw new IllegalArgumentException("Unexpected group mask word: " + word + '.');
+        }
     }
 }
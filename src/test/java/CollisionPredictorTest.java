@@ -0,0 +1,133 @@
+import model.Vehicle;
+import model.VehicleType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Проверки {@link CollisionPredictor} без внешних зависимостей: методы {@code test*} запускаются Maven Surefire как
+ * POJO-тесты.
+ */
+public class CollisionPredictorTest {
+    private static final long MY_PLAYER_ID = 1L;
+    private static final double SLOT_SIZE = 74.0D;
+    private static final double SPACING = 6.0D;
+
+    /**
+     * Соседние формации начальной расстановки, двигающиеся параллельно, не должны вынуждать стратегию менять
+     * направление перемещения.
+     */
+    public void testSeparatedFormationsDoNotTriggerShift() {
+        CollisionPredictor collisionPredictor = createPredictor();
+
+        assertEquals(-1, collisionPredictor.predictMove(VehicleType.TANK, 0.0D, 300.0D, 180));
+        assertEquals(-1, collisionPredictor.predictMove(VehicleType.IFV, 0.0D, 300.0D, 180));
+        assertEquals(-1, collisionPredictor.predictMove(VehicleType.TANK, -50.0D, 0.0D, 180));
+    }
+
+    public void testFormationMovingIntoNeighbourCollides() {
+        CollisionPredictor collisionPredictor = createPredictor();
+
+        int tick = collisionPredictor.predictMove(VehicleType.TANK, 2.0D * SLOT_SIZE, 0.0D, 600);
+        if (tick <= 0) {
+            throw new AssertionError("Expected collision, got " + tick + '.');
+        }
+    }
+
+    public void testAerialFormationIgnoresGroundFormations() {
+        CollisionPredictor collisionPredictor = createPredictor();
+
+        assertEquals(-1, collisionPredictor.predictMove(VehicleType.FIGHTER, 2.0D * SLOT_SIZE, 0.0D, 600));
+    }
+
+    public void testFormationRotatedAroundNeighbourCollides() {
+        CollisionPredictor collisionPredictor = createPredictor();
+
+        int tick = collisionPredictor.predictRotate(
+                VehicleType.TANK, 45.0D + SLOT_SIZE, 45.0D, StrictMath.PI / 2.0D, 600
+        );
+        if (tick <= 0) {
+            throw new AssertionError("Expected collision, got " + tick + '.');
+        }
+    }
+
+    /**
+     * Прямоугольник, описанный вокруг слегка повёрнутой формации, не должен доставать до соседней формации.
+     */
+    public void testFormationRotatedInPlaceDoesNotCollide() {
+        CollisionPredictor collisionPredictor = createPredictor();
+
+        assertEquals(-1, collisionPredictor.predictRotate(VehicleType.TANK, 45.0D, 45.0D, StrictMath.PI / 12.0D, 600));
+    }
+
+    public void testScaledFormationCollidesWithNeighbour() {
+        CollisionPredictor collisionPredictor = createPredictor();
+
+        assertEquals(-1, collisionPredictor.predictScale(VehicleType.TANK, 45.0D, 45.0D, 1.2D, 600));
+
+        int tick = collisionPredictor.predictScale(VehicleType.TANK, 45.0D, 45.0D, 2.0D, 600);
+        if (tick <= 0) {
+            throw new AssertionError("Expected collision, got " + tick + '.');
+        }
+    }
+
+    /**
+     * Формации, пересекающие рамку выделения, рассеиваются вместе и друг для друга препятствиями не являются.
+     */
+    public void testScaledSelectionCollidesOnlyWithUnselectedFormations() {
+        CollisionPredictor collisionPredictor = createPredictor();
+
+        assertEquals(-1, collisionPredictor.predictScale(
+                16.0D, 16.0D, 16.0D + 2.0D * SLOT_SIZE, 16.0D + SLOT_SIZE, SLOT_SIZE, 45.0D, 2.0D, 600
+        ));
+
+        int tick = collisionPredictor.predictScale(30.0D, 30.0D, 60.0D, 60.0D, 45.0D, 45.0D, 4.0D, 600);
+        if (tick <= 0) {
+            throw new AssertionError("Expected collision, got " + tick + '.');
+        }
+    }
+
+    /**
+     * Танки и БМП стоят в соседних ячейках сетки начальной расстановки, истребители --- над танками.
+     */
+    private static CollisionPredictor createPredictor() {
+        List<Vehicle> vehicles = new ArrayList<>();
+        MotionHistory motionHistory = new MotionHistory(16);
+
+        addFormation(vehicles, VehicleType.TANK, false, 18.0D, 18.0D);
+        addFormation(vehicles, VehicleType.IFV, false, 18.0D + SLOT_SIZE, 18.0D);
+        addFormation(vehicles, VehicleType.FIGHTER, true, 18.0D, 18.0D);
+
+        VehicleTable vehicleTable = new VehicleTable();
+
+        for (Vehicle vehicle : vehicles) {
+            vehicleTable.add(vehicle);
+            motionHistory.record(
+                    vehicle.getId(), vehicle.getType().ordinal(), vehicle.getX(), vehicle.getY(), 0, true
+            );
+        }
+
+        CollisionPredictor collisionPredictor = new CollisionPredictor();
+        collisionPredictor.update(MY_PLAYER_ID, vehicleTable, motionHistory, 0);
+        return collisionPredictor;
+    }
+
+    private static void addFormation(List<Vehicle> vehicles, VehicleType vehicleType, boolean aerial, double left,
+                                     double top) {
+        for (int column = 0; column < 10; ++column) {
+            for (int row = 0; row < 10; ++row) {
+                vehicles.add(new Vehicle(
+                        vehicles.size() + 1L, left + column * SPACING, top + row * SPACING, 2.0D, MY_PLAYER_ID, 100,
+                        100, 0.4D, 60.0D, 3600.0D, 20.0D, 400.0D, 20.0D, 400.0D, 10, 10, 5, 5, 60, 0, vehicleType,
+                        aerial, false, new int[0]
+                ));
+            }
+        }
+    }
+
+    private static void assertEquals(int expected, int actual) {
+        if (expected != actual) {
+            throw new AssertionError("Expected " + expected + ", got " + actual + '.');
+        }
+    }
+}